@@ -0,0 +1,142 @@
+package proofcompiler;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import proofcompiler.ast.Line;
+import proofcompiler.ast.Proof;
+import proofcompiler.codegen.Latex;
+import proofcompiler.codegen.LatexEquiv;
+import proofcompiler.codegen.MathJaxJson;
+import proofcompiler.graph.Step;
+import proofcompiler.parser.ASTBuilder;
+
+/**
+ * Throughput of every compiler phase.
+ *
+ * Each benchmark runs one phase on the output of the previous phases,
+ * computed once in the setup. The `lines` counter reports the number of
+ * source lines processed per second; run with `-prof gc` and divide
+ * `gc.alloc.rate.norm` by the number of lines of the workload to get the
+ * allocation per line.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PhaseBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Workload {
+        @Param({"17au-3-1", "dpr_nested", "inference_only", "synthetic-1000"})
+        public String proof;
+
+        byte[] source;
+        Proof ast;
+        Step conclusion;
+        List<Line> lines;
+
+        @Setup
+        public void setup() throws Exception {
+            source = Workloads.source(proof, false);
+            ast = new ASTBuilder().parse(new ByteArrayInputStream(source));
+            conclusion = FormatChecker.check(ast);
+            lines = new Optimizer().optimize(conclusion);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class EquivalenceWorkload {
+        @Param({"all-notations", "synthetic-1000"})
+        public String equivalence;
+
+        List<Line> lines;
+
+        @Setup
+        public void setup() throws Exception {
+            var source = Workloads.source(equivalence, true);
+            var ast = new ASTBuilder().parse(new ByteArrayInputStream(source));
+            lines = new Optimizer().optimize(FormatChecker.check(ast));
+        }
+    }
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Counters {
+        public long lines;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            lines = 0;
+        }
+    }
+
+    @Benchmark
+    public Proof parse(Workload w, Counters c) throws Exception {
+        c.lines += w.ast.lines.size();
+        return ASTBuilder.local().parse(new ByteArrayInputStream(w.source));
+    }
+
+    @State(Scope.Thread)
+    public static class Antlr {
+        final ASTBuilder builder = new ASTBuilder(false);
+    }
+
+    @Benchmark
+    public Proof parseAntlr(Workload w, Antlr antlr, Counters c) throws Exception {
+        c.lines += w.ast.lines.size();
+        return antlr.builder.parse(new ByteArrayInputStream(w.source));
+    }
+
+    @Benchmark
+    public Step check(Workload w, Counters c) throws Exception {
+        c.lines += w.ast.lines.size();
+        return FormatChecker.check(w.ast);
+    }
+
+    @Benchmark
+    public List<Line> optimize(Workload w, Counters c) {
+        c.lines += w.ast.lines.size();
+        return new Optimizer().optimize(w.conclusion);
+    }
+
+    @Benchmark
+    public String latex(Workload w, Counters c) {
+        c.lines += w.lines.size();
+        return new Latex().generate(w.lines);
+    }
+
+    @Benchmark
+    public String mathJaxJson(Workload w, Counters c) {
+        c.lines += w.lines.size();
+        return new MathJaxJson(false).generate(w.lines);
+    }
+
+    @Benchmark
+    public String latexEquiv(EquivalenceWorkload w, Counters c) {
+        c.lines += w.lines.size();
+        return new LatexEquiv().generate(w.lines);
+    }
+
+    @Benchmark
+    public String mathJaxJsonEquiv(EquivalenceWorkload w, Counters c) {
+        c.lines += w.lines.size();
+        return new MathJaxJson(true).generate(w.lines);
+    }
+}
@@ -0,0 +1,51 @@
+package proofcompiler;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+import proofcompiler.generator.ProofGenerator;
+
+/**
+ * Proof sources used by the benchmarks.
+ *
+ * A workload is either the base name of a proof in the `valid` test corpus,
+ * or `synthetic-<n>` for a proof of n lines generated by `ProofGenerator`
+ * with the default configuration and seed.
+ */
+final class Workloads {
+    private Workloads() {}
+
+    private static final String SYNTHETIC = "synthetic-";
+
+    static byte[] source(String workload, boolean equivalence) {
+        if (workload.startsWith(SYNTHETIC)) {
+            int lines = Integer.parseInt(workload.substring(SYNTHETIC.length()));
+            String source = equivalence ? syntheticEquivalence(lines) : syntheticProof(lines);
+            return source.getBytes(StandardCharsets.UTF_8);
+        }
+        String resource = String.format("valid/%s.proof", workload);
+        try (InputStream input = Workloads.class.getClassLoader().getResourceAsStream(resource)) {
+            if (input == null)
+                throw new IllegalArgumentException(String.format("no workload '%s'", workload));
+            return input.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String syntheticProof(int lines) {
+        return new ProofGenerator(config(lines)).proof();
+    }
+
+    private static String syntheticEquivalence(int lines) {
+        return new ProofGenerator(config(lines)).equivalence();
+    }
+
+    private static ProofGenerator.Config config(int lines) {
+        var config = new ProofGenerator.Config();
+        config.lines = lines;
+        return config;
+    }
+}
@@ -0,0 +1,65 @@
+package proofcompiler.graph;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import proofcompiler.ast.Number;
+import proofcompiler.ast.logic.Proposition;
+import static proofcompiler.ast.logic.Proposition.atomic;
+import static proofcompiler.ast.logic.Proposition.and;
+
+/**
+ * Cost of checking an equivalence line on deep formulas.
+ *
+ * The formulas are `x_{k+1} = x_k ∧ x_k` with `x_0 = p ∧ p` on the left and
+ * `x_0 = p` on the right, so the line is an application of idempotency at
+ * the 2^depth leaves of a formula with only depth distinct subterms.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EquivalenceBenchmark {
+    @Param({"20", "24", "28"})
+    public int depth;
+
+    private Step.StepConstructor rule;
+    private Number number;
+    private Proposition proposition;
+    private List<Step> dependencies;
+
+    @Setup
+    public void setup() throws Step.RuleCheckException {
+        Proposition lhs = and(atomic("p"), atomic("p"));
+        Proposition rhs = atomic("p");
+        for (int i = 0; i < depth; i++) {
+            lhs = and(lhs, lhs);
+            rhs = and(rhs, rhs);
+        }
+        this.rule = Rules.get("idempotency");
+        this.number = new Number(List.of(2));
+        this.proposition = rhs;
+        this.dependencies = List.of(new Assumption(0, new Number(List.of(1)), lhs, List.of()));
+    }
+
+    @Benchmark
+    public Step match() throws Step.RuleCheckException {
+        Step step = rule.apply(1, number, proposition, "idempotency", dependencies);
+        step.check();
+        return step;
+    }
+}
@@ -0,0 +1,76 @@
+package proofcompiler.graph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import proofcompiler.ast.Number;
+import proofcompiler.ast.logic.Proposition;
+import static proofcompiler.ast.logic.Proposition.atomic;
+import static proofcompiler.ast.logic.Proposition.meta;
+import static proofcompiler.ast.logic.Proposition.implies;
+
+/**
+ * Cost of matching the referenced lines of an inference against the
+ * antecedents of a rule with n premises.
+ *
+ * The rule is a chain `A0, A0 → A1, ..., An-2 → An-1 ⊢ An-1`, and the
+ * referenced lines are given in reverse order, so that the premises have to
+ * be reordered to match.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InferenceBenchmark {
+    @Param({"2", "3", "6", "10"})
+    public int premises;
+
+    private Step.StepConstructor rule;
+    private Number number;
+    private Proposition proposition;
+    private List<Step> dependencies;
+
+    @Setup
+    public void setup() throws Step.RuleCheckException {
+        List<Proposition> antecedents = new ArrayList<>();
+        List<Step> dependencies = new ArrayList<>();
+        antecedents.add(meta("A0"));
+        dependencies.add(new Assumption(0, new Number(List.of(1)), atomic("p0"), List.of()));
+        for (int i = 1; i < premises; i++) {
+            antecedents.add(implies(meta("A" + (i - 1)), meta("A" + i)));
+            dependencies.add(new Assumption(
+                        i,
+                        new Number(List.of(i + 1)),
+                        implies(atomic("p" + (i - 1)), atomic("p" + i)),
+                        List.of()));
+        }
+        Collections.reverse(dependencies);
+        this.rule = Inference.rule(antecedents, List.of(meta("A" + (premises - 1))));
+        this.number = new Number(List.of(premises + 1));
+        this.proposition = atomic("p" + (premises - 1));
+        this.dependencies = dependencies;
+    }
+
+    @Benchmark
+    public Step match() throws Step.RuleCheckException {
+        Step step = rule.apply(dependencies.size(), number, proposition, "chain", dependencies);
+        step.check();
+        return step;
+    }
+}
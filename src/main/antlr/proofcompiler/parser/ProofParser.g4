@@ -50,11 +50,10 @@ ruleName returns [String value]
 
 operator : NEG | AND | OR | XOR | IMPLIES | IFF ;
 
+// Left factored, so that the alternative is predicted from the token
+// following the first operand
 proposition returns [Proposition value]
-    : propSum                       # propositionSum
-    | propSum IMPLIES propSum       # propositionImpl
-    | propSum IFF propSum           # propositionIff
-    ;
+    : propSum ((IMPLIES | IFF) propSum)? ;
 propSum  returns [Proposition value] : propXor  (OR  propXor )* ;
 propXor  returns [Proposition value] : propProd (XOR propProd)* ;
 propProd returns [Proposition value] : propAtom (AND propAtom)* ;
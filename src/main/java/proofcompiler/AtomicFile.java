@@ -0,0 +1,76 @@
+package proofcompiler;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Writes files as a whole.
+ *
+ * A file is written to a temporary file next to it, then moved over it,
+ * so that a failed write leaves the file as it was, and readers never see
+ * a partial file. The temporary file is created like the file would be,
+ * with the default permissions.
+ */
+final class AtomicFile {
+    private AtomicFile() {}
+
+    /**
+     * Text written to a file.
+     */
+    interface Content {
+        void write(Writer out) throws IOException;
+    }
+
+    private interface Bytes {
+        void write(OutputStream out) throws IOException;
+    }
+
+    /**
+     * Writes `content` to `path` in UTF-8, through a buffer. Characters
+     * that cannot be encoded fail the write.
+     */
+    static void write(Path path, Content content) throws IOException {
+        writeStream(path, out -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8.newEncoder()));
+            content.write(writer);
+            // Also encodes, or rejects, a trailing unpaired surrogate
+            writer.close();
+        });
+    }
+
+    /**
+     * Writes `bytes` to `path`.
+     */
+    static void write(Path path, byte[] bytes) throws IOException {
+        writeStream(path, out -> out.write(bytes));
+    }
+
+    private static void writeStream(Path path, Bytes bytes) throws IOException {
+        path = path.toAbsolutePath();
+        Path temp = path.resolveSibling(String.format(
+                    ".%s.%016x.tmp", path.getFileName(), ThreadLocalRandom.current().nextLong()));
+        try {
+            try (OutputStream out = Files.newOutputStream(temp, StandardOpenOption.CREATE_NEW,
+                        StandardOpenOption.WRITE)) {
+                bytes.write(out);
+            }
+            try {
+                Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package proofcompiler;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+import proofcompiler.parser.ASTBuilder;
+import proofcompiler.graph.Step;
+
+/**
+ * Compiles many proof files concurrently.
+ *
+ * Files are read on an I/O pool and checked on a fixed pool of
+ * `parallelism` threads. The output is generated straight into the output
+ * file on the I/O pool. The number of files in flight is bounded, so
+ * that memory use does not grow with the size of the batch. A summary is
+ * printed in input order once all files are done.
+ *
+ * With a cache, files whose content was compiled before are not compiled
+ * again: their output or error is taken from the cache.
+ */
+public class Batch {
+    private final int parallelism;
+    private final Cache cache;
+
+    /**
+     * Outcome of compiling one file.
+     */
+    public static class Outcome {
+        public final String file;
+        /** Error description, or null if the compilation succeeded. */
+        public final String error;
+        /**
+         * Time spent parsing and checking, excluding I/O, or looking up the
+         * cache. Zero if the file could not be read.
+         */
+        public final long nanos;
+        /** Whether the result was taken from the cache. */
+        public final boolean cached;
+
+        Outcome(String file, String error, long nanos, boolean cached) {
+            this.file = file;
+            this.error = error;
+            this.nanos = nanos;
+            this.cached = cached;
+        }
+    }
+
+    public Batch(int parallelism) {
+        this(parallelism, null);
+    }
+
+    /**
+     * @param cache cache of the results, or null
+     */
+    public Batch(int parallelism, Cache cache) {
+        this.parallelism = parallelism;
+        this.cache = cache;
+    }
+
+    /**
+     * Compiles `files` and prints a summary to stderr.
+     */
+    public List<Outcome> run(List<String> files) {
+        long start = System.nanoTime();
+        List<Outcome> outcomes = compile(files);
+        long wall = System.nanoTime() - start;
+
+        int failed = 0;
+        int cached = 0;
+        int unread = 0;
+        long busy = 0;
+        for (Outcome outcome : outcomes) {
+            busy += outcome.nanos;
+            if (outcome.cached)
+                cached++;
+            if (outcome.error != null && outcome.nanos == 0)
+                unread++;
+            if (outcome.error == null) {
+                System.err.println(String.format("ok     %s", outcome.file));
+            } else {
+                failed++;
+                System.err.println(String.format("FAILED %s: %s", outcome.file, outcome.error));
+            }
+        }
+        double seconds = wall / 1e9;
+        System.err.println(String.format(
+                    "%d files, %d succeeded, %d failed in %.3f s with %d jobs",
+                    outcomes.size(), outcomes.size() - failed, failed, seconds, parallelism));
+        // Files that could not be read were not compiled
+        int compiled = outcomes.size() - unread;
+        System.err.println(String.format(
+                    "throughput %.1f files/s, compile time %.3f s, mean %.3f ms/file",
+                    outcomes.size() / seconds, busy / 1e9,
+                    compiled == 0 ? 0.0 : busy / 1e6 / compiled));
+        if (cache != null)
+            System.err.println(String.format("%d files from the cache", cached));
+        return outcomes;
+    }
+
+    /**
+     * Compiles `files`, returning their outcomes in input order.
+     */
+    public List<Outcome> compile(List<String> files) {
+        ExecutorService io = Executors.newFixedThreadPool(Math.min(4 * parallelism, 64));
+        ExecutorService cpu = Executors.newFixedThreadPool(parallelism);
+        Semaphore inFlight = new Semaphore(4 * parallelism);
+        List<CompletableFuture<Outcome>> futures = new ArrayList<>(files.size());
+        try {
+            for (String file : files) {
+                inFlight.acquireUninterruptibly();
+                var future = CompletableFuture
+                    .supplyAsync(() -> read(file), io)
+                    .thenApplyAsync(source -> compile(file, source), cpu)
+                    .thenApplyAsync(this::write, io)
+                    // Only files that could not be read fail here
+                    .exceptionally(e -> new Outcome(file, Compiler.describe(unwrap(e)), 0, false));
+                future.whenComplete((outcome, e) -> inFlight.release());
+                futures.add(future);
+            }
+            List<Outcome> outcomes = new ArrayList<>(files.size());
+            for (var future : futures)
+                outcomes.add(future.join());
+            return outcomes;
+        } finally {
+            io.shutdown();
+            cpu.shutdown();
+        }
+    }
+
+    /**
+     * A compiled file, waiting to be written.
+     * Either the document, or the result stored in the cache, is not null.
+     */
+    private static class Compiled {
+        final String file;
+        final Compiler.Document document;
+        final Cache.Entry entry;
+        final long nanos;
+        final boolean cached;
+
+        Compiled(String file, Compiler.Document document, Cache.Entry entry, long nanos, boolean cached) {
+            this.file = file;
+            this.document = document;
+            this.entry = entry;
+            this.nanos = nanos;
+            this.cached = cached;
+        }
+    }
+
+    private static byte[] read(String file) {
+        try {
+            return Files.readAllBytes(Paths.get(file));
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private Compiled compile(String file, byte[] source) {
+        long start = System.nanoTime();
+        if (cache != null) {
+            var entry = cache.get(source);
+            if (entry != null)
+                return new Compiled(file, null, entry, System.nanoTime() - start, true);
+        }
+        Compiler.Document document;
+        try {
+            document = Compiler.compile(new ByteArrayInputStream(source), null);
+        } catch (IOException | ASTBuilder.ParserException
+                | FormatChecker.FormatCheckException | Step.RuleCheckException e) {
+            // Describing rule errors decides entailment and suggestions,
+            // which counts as checking
+            var entry = new Cache.Entry(null, Compiler.describe(e));
+            long nanos = System.nanoTime() - start;
+            // Errors of the source are cached, their descriptions only depend on it
+            if (cache != null && !(e instanceof IOException))
+                store(source, entry);
+            return new Compiled(file, null, entry, nanos, false);
+        } catch (Exception e) {
+            return new Compiled(file, null, new Cache.Entry(null, Compiler.describe(e)),
+                    System.nanoTime() - start, false);
+        }
+        if (cache == null)
+            return new Compiled(file, document, null, System.nanoTime() - start, false);
+        // The document is stored as a whole, and written from the cache entry
+        var entry = new Cache.Entry(document.toString(), null);
+        long nanos = System.nanoTime() - start;
+        store(source, entry);
+        return new Compiled(file, null, entry, nanos, false);
+    }
+
+    /**
+     * Stores a result in the cache. Failures only lose the result.
+     */
+    private void store(byte[] source, Cache.Entry entry) {
+        try {
+            cache.put(source, entry);
+        } catch (IOException e) {
+            System.err.println(String.format("warning: cannot write to the cache: %s", e.getMessage()));
+        }
+    }
+
+    private Outcome write(Compiled compiled) {
+        try {
+            if (compiled.document != null) {
+                compiled.document.write(Compiler.outputFile(compiled.file));
+            } else if (compiled.entry.error == null) {
+                String output = compiled.entry.output;
+                AtomicFile.write(Paths.get(Compiler.outputFile(compiled.file)), out -> out.write(output));
+            } else {
+                return new Outcome(compiled.file, compiled.entry.error, compiled.nanos, compiled.cached);
+            }
+            return new Outcome(compiled.file, null, compiled.nanos, compiled.cached);
+        } catch (IOException e) {
+            return new Outcome(compiled.file, Compiler.describe(e), compiled.nanos, compiled.cached);
+        }
+    }
+
+    private static Exception unwrap(Throwable e) {
+        while (e instanceof CompletionException && e.getCause() != null)
+            e = e.getCause();
+        return e instanceof Exception ? (Exception) e : new RuntimeException(e);
+    }
+}
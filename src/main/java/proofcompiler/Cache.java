@@ -0,0 +1,272 @@
+package proofcompiler;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Persistent cache of compilation results, addressed by content.
+ *
+ * The key of a source is the SHA-256 of the cache format, the compiler
+ * and the source bytes, so that results are not reused across versions of
+ * the compiler. The compiler is identified by the digest of its classes:
+ * the jar they were loaded from, or every file of their directory when
+ * running from a build. The rule table is defined by the classes of
+ * `Rules`, so the digest covers it without compiling the rules. An entry
+ * holds the verdict: either the generated document or the description of
+ * the error, which must only depend on the source.
+ *
+ * Entries are written to a temporary file, then atomically moved into
+ * place by `AtomicFile`, so that concurrent workers, in this process or
+ * others, never see a partial entry. When the cache grows over its size
+ * bound, the least recently used entries are evicted, judging by their
+ * modification time, which is updated on every hit.
+ */
+public class Cache {
+    // Changed whenever the layout of the entries changes
+    private static final String FORMAT = "proofcompiler-cache 2";
+    private static final String SUFFIX = ".entry";
+    // Eviction stops at this fraction of the bound
+    private static final double EVICTION_TARGET = 0.9;
+    // Digest of the classes of the compiler, once computed
+    private static String compiler = null;
+
+    private final Path dir;
+    private final long maxBytes;
+    private final byte[] salt;
+    private final AtomicLong size;
+    private final Object evicting = new Object();
+
+    /**
+     * A cached compilation result.
+     */
+    public static class Entry {
+        /** Generated document, or null if the compilation failed. */
+        public final String output;
+        /** Error description, or null if the compilation succeeded. */
+        public final String error;
+
+        public Entry(String output, String error) {
+            assert (output == null) != (error == null);
+            this.output = output;
+            this.error = error;
+        }
+    }
+
+    /**
+     * Opens the cache in `dir`, creating the directory if needed.
+     */
+    public Cache(Path dir, long maxBytes) throws IOException {
+        this.dir = Files.createDirectories(dir);
+        this.maxBytes = maxBytes;
+        this.salt = (FORMAT + "\n" + compiler()).getBytes(StandardCharsets.UTF_8);
+        long size = 0;
+        for (Path entry : entries())
+            size += sizeOf(entry);
+        this.size = new AtomicLong(size);
+    }
+
+    /**
+     * Returns the cached result of compiling `source`, or null if there is
+     * none. A damaged entry counts as missing.
+     */
+    public Entry get(byte[] source) {
+        Path path = path(source);
+        try {
+            byte[] bytes = Files.readAllBytes(path);
+            touch(path);
+            try (var in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+                boolean ok = in.readBoolean();
+                String text = readString(in);
+                return ok ? new Entry(text, null) : new Entry(null, text);
+            }
+        } catch (IOException e) {
+            // Missing, being evicted, or damaged
+            return null;
+        }
+    }
+
+    /**
+     * Stores the result of compiling `source`, then evicts entries if the
+     * cache is over its size bound.
+     */
+    public void put(byte[] source, Entry entry) throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        try (var out = new DataOutputStream(bytes)) {
+            out.writeBoolean(entry.error == null);
+            writeString(out, entry.error == null ? entry.output : entry.error);
+        }
+
+        Path path = path(source);
+        Files.createDirectories(path.getParent());
+        AtomicFile.write(path, bytes.toByteArray());
+        if (size.addAndGet(bytes.size()) > maxBytes)
+            evict(path);
+    }
+
+    /**
+     * Deletes the least recently used entries, except `kept`, until the
+     * cache is below its target size. Entries deleted concurrently are
+     * skipped.
+     */
+    private void evict(Path kept) throws IOException {
+        synchronized (evicting) {
+            if (size.get() <= maxBytes)
+                return;
+            List<Path> entries = entries();
+            Map<Path, FileTime> times = new HashMap<>();
+            long total = 0;
+            for (Path entry : entries) {
+                FileTime time;
+                try {
+                    time = Files.getLastModifiedTime(entry);
+                } catch (NoSuchFileException e) {
+                    time = FileTime.fromMillis(0);
+                }
+                times.put(entry, time);
+                total += sizeOf(entry);
+            }
+            entries.sort(Comparator.comparing(times::get));
+
+            long target = (long) (maxBytes * EVICTION_TARGET);
+            for (int i = 0; i < entries.size() && total > target; i++) {
+                Path entry = entries.get(i);
+                if (entry.equals(kept))
+                    continue;
+                long entrySize = sizeOf(entry);
+                if (Files.deleteIfExists(entry))
+                    total -= entrySize;
+            }
+            size.set(total);
+        }
+    }
+
+    /**
+     * Marks an entry as used, unless it was evicted meanwhile.
+     */
+    private static void touch(Path entry) {
+        try {
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // The entry was read, it is used anyway
+        }
+    }
+
+    private Path path(byte[] source) {
+        String key = key(source);
+        return dir.resolve(key.substring(0, 2)).resolve(key + SUFFIX);
+    }
+
+    private String key(byte[] source) {
+        MessageDigest digest = sha256();
+        digest.update(salt);
+        digest.update(source);
+        return hex(digest.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform implements SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder();
+        for (byte b : bytes)
+            sb.append(String.format("%02x", b));
+        return sb.toString();
+    }
+
+    private List<Path> entries() throws IOException {
+        try (Stream<Path> paths = Files.walk(dir, 2)) {
+            List<Path> entries = new ArrayList<>();
+            paths.filter(path -> path.getFileName().toString().endsWith(SUFFIX)).forEach(entries::add);
+            return entries;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static long sizeOf(Path entry) throws IOException {
+        try {
+            return Files.size(entry);
+        } catch (NoSuchFileException e) {
+            return 0;
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > in.available())
+            throw new IOException("damaged cache entry");
+        byte[] bytes = in.readNBytes(length);
+        if (in.available() != 0)
+            throw new IOException("damaged cache entry");
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Digest of the classes of the compiler, computed once per process.
+     */
+    private static synchronized String compiler() throws IOException {
+        if (compiler == null) {
+            var source = Cache.class.getProtectionDomain().getCodeSource();
+            if (source == null)
+                throw new IOException("cannot locate the classes of the compiler");
+            Path location;
+            try {
+                location = Paths.get(source.getLocation().toURI());
+            } catch (URISyntaxException | IllegalArgumentException e) {
+                throw new IOException("cannot locate the classes of the compiler", e);
+            }
+            MessageDigest digest = sha256();
+            if (Files.isDirectory(location)) {
+                // Relative paths in order, each followed by its content
+                List<Path> files;
+                try (Stream<Path> paths = Files.walk(location)) {
+                    files = paths.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+                for (Path file : files) {
+                    digest.update(location.relativize(file).toString().getBytes(StandardCharsets.UTF_8));
+                    digest.update((byte) 0);
+                    digest.update(Files.readAllBytes(file));
+                }
+            } else {
+                digest.update(Files.readAllBytes(location));
+            }
+            compiler = hex(digest.digest());
+        }
+        return compiler;
+    }
+}
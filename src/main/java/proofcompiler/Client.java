@@ -0,0 +1,79 @@
+package proofcompiler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Client of a `Server`, compiling sources over one connection.
+ */
+public class Client implements Closeable {
+    private final Socket socket;
+    private final InputStream in;
+    private final OutputStream out;
+
+    /**
+     * Thrown when the server could not compile a source.
+     */
+    public static class CompileException extends Exception {
+        private static final long serialVersionUID = 0;
+
+        /**
+         * `description` is the one `Compiler.describe` gave.
+         */
+        public CompileException(String description) {
+            super(description);
+        }
+    }
+
+    /**
+     * Connects to the server listening on `port` of the loopback interface.
+     */
+    public Client(int port) throws IOException {
+        this.socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        socket.setTcpNoDelay(true);
+        this.in = new BufferedInputStream(socket.getInputStream());
+        this.out = new BufferedOutputStream(socket.getOutputStream());
+    }
+
+    /**
+     * Compiles `source` on the server and returns the document.
+     */
+    public String compile(byte[] source) throws IOException, CompileException {
+        out.write(Server.header(Server.COMPILE + " " + source.length));
+        out.write(source);
+        out.flush();
+
+        String header = Server.readHeader(in);
+        if (header == null)
+            throw new IOException("connection closed by the server");
+        int length = Server.parseLength(header, Server.ERROR);
+        if (length >= 0)
+            throw new CompileException(readBody(length));
+        length = Server.parseLength(header, Server.OK);
+        return readBody(length);
+    }
+
+    /**
+     * Reads a body of `length` bytes in UTF-8.
+     */
+    private String readBody(int length) throws IOException {
+        if (length < 0 || length > Server.MAX_BODY)
+            throw new IOException("malformed response");
+        byte[] body = in.readNBytes(length);
+        if (body.length < length)
+            throw new IOException("connection closed by the server");
+        return new String(body, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+}
@@ -0,0 +1,138 @@
+package proofcompiler;
+
+import java.io.InputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import proofcompiler.parser.ASTBuilder;
+import proofcompiler.ast.Line;
+import proofcompiler.ast.Proof;
+import proofcompiler.graph.Step;
+import proofcompiler.codegen.Codegen;
+import proofcompiler.codegen.Latex;
+import proofcompiler.codegen.LatexEquiv;
+
+/**
+ * The pipeline compiling a proof source code into a LaTeX document.
+ */
+public final class Compiler {
+    private Compiler() {}
+
+    private static final String LATEX_HEADER =
+        "\\documentclass{article}\n" +
+        "\\usepackage{amsmath, amsthm}\n" +
+        "\\begin{document}\n";
+    private static final String LATEX_FOOTER =
+        "\\end{document}\n";
+
+    /**
+     * A checked proof, ready to be written as a LaTeX document.
+     */
+    public static final class Document {
+        private final Codegen codegen;
+        private final List<Line> lines;
+
+        private Document(Codegen codegen, List<Line> lines) {
+            this.codegen = codegen;
+            this.lines = lines;
+        }
+
+        /**
+         * Writes the document to `out` as it is generated.
+         */
+        public void write(Appendable out) throws IOException {
+            out.append(LATEX_HEADER);
+            codegen.generate(lines, out);
+            out.append(LATEX_FOOTER);
+        }
+
+        /**
+         * Returns the whole document.
+         */
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            try {
+                write(sb);
+            } catch (IOException e) {
+                // StringBuilder does not throw
+                throw new UncheckedIOException(e);
+            }
+            return sb.toString();
+        }
+
+        /**
+         * Writes the document to `file` in UTF-8, through a buffer. A
+         * failed write leaves `file` as it was.
+         */
+        public void write(String file) throws IOException {
+            AtomicFile.write(Paths.get(file), this::write);
+        }
+    }
+
+    /**
+     * Returns the output file of `file`: `<name>.tex` for `<name>.proof`,
+     * and `file` with `.tex` appended otherwise.
+     */
+    public static String outputFile(String file) {
+        var baseName = file.endsWith(".proof") ? file.substring(0, file.length() - ".proof".length()) : file;
+        return baseName + ".tex";
+    }
+
+    /**
+     * Compiles a proof into a LaTeX document.
+     * If `pool` is not null, the rules are checked concurrently on it.
+     * The proof is fully checked before anything is written.
+     */
+    public static Document compile(InputStream input, ForkJoinPool pool)
+            throws IOException, ASTBuilder.ParserException,
+                   FormatChecker.FormatCheckException, Step.RuleCheckException {
+        var proof = ASTBuilder.local().parse(input);
+        Step conclusion = pool == null ? FormatChecker.check(proof) : FormatChecker.check(proof, pool);
+        return document(proof, conclusion);
+    }
+
+    /**
+     * Compiles a version of a proof into a LaTeX document, re-checking
+     * with `checker` only the lines that changed since the version it
+     * checked last.
+     */
+    public static Document recompile(InputStream input, IncrementalChecker checker)
+            throws IOException, ASTBuilder.ParserException,
+                   FormatChecker.FormatCheckException, Step.RuleCheckException {
+        var proof = ASTBuilder.local().parse(input);
+        return document(proof, checker.check(proof));
+    }
+
+    /**
+     * Returns the document of the lines of an equivalence chain, which are
+     * not checked.
+     */
+    public static Document equivalence(List<Line> lines) {
+        return new Document(new LatexEquiv(), lines);
+    }
+
+    private static Document document(Proof proof, Step conclusion) {
+        var lines = new Optimizer().optimize(conclusion);
+        var codegen = proof.equivalence ? new LatexEquiv() : new Latex();
+        return new Document(codegen, lines);
+    }
+
+    /**
+     * Describes an exception thrown by `compile` for the user.
+     */
+    public static String describe(Exception e) {
+        if (e instanceof IOException)
+            return "IO Error: " + e.getMessage();
+        if (e instanceof ASTBuilder.ParserException)
+            return "Parser Error";
+        if (e instanceof FormatChecker.FormatCheckException)
+            return String.format("Format Error: %s", e.getMessage());
+        if (e instanceof Step.RuleCheckException)
+            return String.format("Rule Error: %s", e.getMessage());
+        return String.format("Internal Error: %s", e);
+    }
+}
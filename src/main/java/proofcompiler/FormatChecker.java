@@ -5,13 +5,16 @@ import java.util.List;
 import java.util.ArrayList;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.Set;
+import java.util.HashSet;
 import java.util.Deque;
 import java.util.ArrayDeque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import proofcompiler.ast.Proof;
 import proofcompiler.ast.Declarations;
 import proofcompiler.ast.Line;
 import proofcompiler.ast.Number;
-import proofcompiler.ast.logic.PropositionVisitor;
 import proofcompiler.ast.logic.Proposition;
 import proofcompiler.ast.logic.Atomic;
 import proofcompiler.ast.logic.UnaryOp;
@@ -20,6 +23,7 @@ import proofcompiler.graph.Step;
 import proofcompiler.graph.Assumption;
 import proofcompiler.graph.Given;
 import proofcompiler.graph.DPR;
+import proofcompiler.graph.Rules;
 
 public enum FormatChecker {
     /* no instantiation */;
@@ -32,8 +36,82 @@ public enum FormatChecker {
         }
     }
 
+    /**
+     * Checks a proof and returns its conclusion.
+     */
     public static Step check(Proof ast)
             throws FormatCheckException, Step.RuleCheckException {
+        Structure structure = build(ast);
+        for (Step step : structure.steps)
+            step.check();
+        return structure.conclusion();
+    }
+
+    /**
+     * Checks a proof and returns its conclusion, checking the rules of all
+     * lines concurrently on `pool`.
+     * Errors are reported as if the lines were checked in order.
+     */
+    public static Step check(Proof ast, ForkJoinPool pool)
+            throws FormatCheckException, Step.RuleCheckException {
+        Structure structure = build(ast);
+        List<ForkJoinTask<Step.RuleCheckException>> tasks = new ArrayList<>(structure.steps.size());
+        for (Step step : structure.steps)
+            tasks.add(pool.submit(() -> {
+                try {
+                    step.check();
+                    return null;
+                } catch (Step.RuleCheckException e) {
+                    return e;
+                }
+            }));
+        for (int i = 0; i < tasks.size(); i++) {
+            Step.RuleCheckException error = tasks.get(i).join();
+            if (error != null) {
+                tasks.subList(i + 1, tasks.size()).forEach(task -> task.cancel(false));
+                throw error;
+            }
+        }
+        return structure.conclusion();
+    }
+
+    /**
+     * The steps of a proof, up to the first structural error.
+     */
+    static class Structure {
+        final List<Step> steps = new ArrayList<>();
+        Step lastStep = null;
+        FormatCheckException formatError = null;
+        Step.RuleCheckException ruleError = null;
+
+        Step conclusion() throws FormatCheckException, Step.RuleCheckException {
+            if (formatError != null)
+                throw formatError;
+            if (ruleError != null)
+                throw ruleError;
+            return lastStep;
+        }
+    }
+
+    /**
+     * Numbers, scopes and resolves the references of all lines, without
+     * checking the rules. Stops at the first structural error, which is
+     * reported by `Structure.conclusion`.
+     */
+    static Structure build(Proof ast) {
+        Structure structure = new Structure();
+        try {
+            structure.lastStep = build(ast, structure.steps);
+        } catch (FormatCheckException e) {
+            structure.formatError = e;
+        } catch (Step.RuleCheckException e) {
+            structure.ruleError = e;
+        }
+        return structure;
+    }
+
+    private static Step build(Proof ast, List<Step> built)
+            throws FormatCheckException, Step.RuleCheckException {
         Map<Number, Step> steps = new HashMap<>();
         Deque<Step> assumptions = new ArrayDeque<>();
         Number number = Number.ZERO;
@@ -45,8 +123,12 @@ public enum FormatChecker {
             number = result.next;
 
             String ruleName = line.rule.name.toLowerCase();
-            Collection<Step> deps = new ArrayList<>(line.rule.refs.size());
-            for (Number dep : line.rule.refs) {
+            // In line order, so that dependencies do not depend on the
+            // iteration order of the references
+            List<Number> refs = new ArrayList<>(line.rule.refs);
+            refs.sort(null);
+            Collection<Step> deps = new ArrayList<>(refs.size());
+            for (Number dep : refs) {
                 Step step = steps.get(dep);
                 if (step == null)
                     throw new FormatCheckException(
@@ -65,7 +147,7 @@ public enum FormatChecker {
                         throw new FormatCheckException(
                                 line.number,
                                 "sub-proofs must start with an assumption");
-                    current = new Assumption(line.number, line.proposition, deps);
+                    current = new Assumption(built.size(), line.number, line.proposition, deps);
                     assumptions.addLast(current);
                     break;
                 case DPR:
@@ -74,22 +156,23 @@ public enum FormatChecker {
                                 line.number,
                                 "sub-proofs must be followed by a Direct Proof Rule");
                     Step assumption = assumptions.removeLast();
-                    current = new DPR(line.number, line.proposition, deps, assumption, lastStep);
+                    current = new DPR(built.size(), line.number, line.proposition, deps, assumption, lastStep);
                     break;
                 case NORMAL:
                     if (ruleName.equals(Step.GIVEN)) {
-                        current = new Given(line.number, line.proposition, deps, ast.decls);
+                        current = new Given(built.size(), line.number, line.proposition, deps, ast.decls);
                     } else {
-                        var constructor = Step.constructors.get(ruleName);
+                        var constructor = Rules.get(ruleName);
                         if (constructor == null)
                             throw new FormatCheckException(
                                     line.number,
                                     String.format("referred rule '%s' does not exist", line.rule.name));
-                        current = constructor.apply(line.number, line.proposition, ruleName, deps);
+                        current = constructor.apply(built.size(), line.number, line.proposition, ruleName, deps);
                     }
                     break;
             }
             steps.put(line.number, current);
+            built.add(current);
             lastStep = current;
         }
         if (!assumptions.isEmpty())
@@ -98,37 +181,28 @@ public enum FormatChecker {
     }
 
     private static void checkAtomics(Declarations decls, Line line) throws FormatCheckException {
-
-        /**
-         * Returns the offending Atomic if one exists, or null otherwise.
-         */
-        class AtomicVisitor extends PropositionVisitor<Atomic> {
-            @Override
-            public Atomic visit(Atomic atomic) {
-                if (!decls.atomics().contains(atomic.name))
-                    return atomic;
-                return null;
-            }
-
-            @Override
-            public Atomic visit(UnaryOp unary) {
-                return visit(unary.arg);
-            }
-
-            @Override
-            public Atomic visit(BinaryOp binary) {
-                Atomic lhs = visit(binary.lhs);
-                return lhs != null ? lhs : visit(binary.rhs);
+        // Pre-order, left to right, so that the first offending atomic
+        // proposition is reported. Shared subterms are visited once.
+        Deque<Proposition> stack = new ArrayDeque<>();
+        Set<Proposition> visited = new HashSet<>();
+        stack.push(line.proposition);
+        while (!stack.isEmpty()) {
+            Proposition prop = stack.pop();
+            if (!visited.add(prop))
+                continue;
+            if (prop instanceof UnaryOp) {
+                stack.push(((UnaryOp) prop).arg);
+            } else if (prop instanceof BinaryOp) {
+                stack.push(((BinaryOp) prop).rhs);
+                stack.push(((BinaryOp) prop).lhs);
+            } else if (prop instanceof Atomic && !decls.atomics().contains(((Atomic) prop).name)) {
+                throw new FormatCheckException(
+                    line.number,
+                    String.format(
+                        "undefined atomic proposition: '%s'",
+                        ((Atomic) prop).name));
             }
         }
-
-        Atomic offending = new AtomicVisitor().visit(line.proposition);
-        if (offending != null)
-            throw new FormatCheckException(
-                line.number,
-                String.format(
-                    "undefined atomic proposition: '%s'",
-                    offending.name));
     }
 
     private static class CheckNumberResult {
@@ -0,0 +1,109 @@
+package proofcompiler;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import proofcompiler.ast.Declarations;
+import proofcompiler.ast.Proof;
+import proofcompiler.ast.logic.Proposition;
+import proofcompiler.graph.Step;
+
+/**
+ * Checks successive versions of a proof, re-checking only the lines that
+ * changed since the previous version.
+ *
+ * The rule of a step is checked against its own proposition and the
+ * propositions of its dependencies only. A step is therefore known valid
+ * if a step with the same rule, proposition and dependency propositions
+ * was valid in the previous version, even if lines were renumbered. The
+ * lines that are re-checked are the edited ones and the ones referring to
+ * an edited line. Numbering and references are always checked, which is
+ * linear in the size of the proof.
+ *
+ * Not thread safe.
+ */
+public class IncrementalChecker {
+    private Declarations decls = null;
+    private Set<Verdict> valid = new HashSet<>();
+    private int checked = 0;
+
+    /**
+     * Checks a proof and returns its conclusion, reusing the verdicts of
+     * the previous calls. Errors are the same as `FormatChecker.check`.
+     */
+    public Step check(Proof ast)
+            throws FormatChecker.FormatCheckException, Step.RuleCheckException {
+        // Givens are checked against the declarations
+        if (!ast.decls.equals(decls)) {
+            decls = ast.decls;
+            valid.clear();
+        }
+        var structure = FormatChecker.build(ast);
+        Set<Verdict> next = new HashSet<>();
+        checked = 0;
+        try {
+            for (Step step : structure.steps) {
+                Verdict verdict = new Verdict(step);
+                if (!valid.contains(verdict)) {
+                    checked++;
+                    step.check();
+                }
+                next.add(verdict);
+            }
+        } catch (Step.RuleCheckException e) {
+            // Remember what is still known valid, for the next version
+            for (Step step : structure.steps) {
+                Verdict verdict = new Verdict(step);
+                if (valid.contains(verdict))
+                    next.add(verdict);
+            }
+            valid = next;
+            throw e;
+        }
+        valid = next;
+        return structure.conclusion();
+    }
+
+    /**
+     * Number of steps whose rule was checked by the last call to `check`.
+     */
+    public int checked() {
+        return checked;
+    }
+
+    /**
+     * What the validity of a step depends on.
+     */
+    private static final class Verdict {
+        final String ruleName;
+        final Proposition proposition;
+        final List<Proposition> dependencies;
+        final int hash;
+
+        Verdict(Step step) {
+            this.ruleName = step.ruleName();
+            this.proposition = step.proposition;
+            this.dependencies = new ArrayList<>(step.dependencies().size());
+            for (Step dep : step.dependencies())
+                dependencies.add(dep.proposition);
+            this.hash = 31 * (31 * ruleName.hashCode() + proposition.hashCode()) + dependencies.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Verdict))
+                return false;
+            Verdict other = (Verdict) o;
+            return hash == other.hash
+                && ruleName.equals(other.ruleName)
+                && proposition.equals(other.proposition)
+                && dependencies.equals(other.dependencies);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
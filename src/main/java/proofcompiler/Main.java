@@ -1,54 +1,264 @@
 package proofcompiler;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.net.ConnectException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.List;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
 
 import proofcompiler.parser.ASTBuilder;
 import proofcompiler.ast.Proof;
-import proofcompiler.ast.Declarations;
+import proofcompiler.ast.logic.Proposition;
+import proofcompiler.graph.ChainSearch;
 import proofcompiler.graph.Step;
-import proofcompiler.codegen.Codegen;
-import proofcompiler.codegen.Latex;
-import proofcompiler.codegen.LatexEquiv;
+import proofcompiler.semantics.Semantics;
 
 public class Main {
+    private static final long DEFAULT_CACHE_MEGABYTES = 256;
 
-    private static final String LATEX_FORMAT =
-        "\\documentclass{article}\n" +
-        "\\usepackage{amsmath, amsthm}\n" +
-        "\\begin{document}\n" +
-        "%s" +
-        "\\end{document}\n";
+    private static void usage(String message) {
+        System.err.println("Error: " + message);
+        System.exit(1);
+    }
 
 	public static void main(String[] args) {
-        if (args.length == 0) {
-            System.err.println("Error: no input file");
+        boolean parallel = false;
+        boolean watch = false;
+        boolean server = false;
+        boolean client = false;
+        int port = Server.DEFAULT_PORT;
+        int jobs = 0;
+        String cacheDir = null;
+        long cacheSize = DEFAULT_CACHE_MEGABYTES;
+        List<String> search = null;
+        List<String> files = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("--parallel")) {
+                parallel = true;
+            } else if (arg.equals("--watch")) {
+                watch = true;
+            } else if (arg.equals("--server")) {
+                server = true;
+            } else if (arg.equals("--client")) {
+                client = true;
+            } else if (arg.equals("--search")) {
+                if (i + 2 >= args.length)
+                    usage(String.format("missing values for '%s'", arg));
+                search = List.of(args[++i], args[++i]);
+            } else if (arg.equals("--port")) {
+                if (++i == args.length)
+                    usage(String.format("missing value for '%s'", arg));
+                try {
+                    port = Integer.parseInt(args[i]);
+                } catch (NumberFormatException e) {
+                    port = -1;
+                }
+                if (port <= 0 || port > 65535)
+                    usage(String.format("invalid port '%s'", args[i]));
+            } else if (arg.equals("--jobs") || arg.equals("-j")) {
+                if (++i == args.length)
+                    usage(String.format("missing value for '%s'", arg));
+                try {
+                    jobs = Integer.parseInt(args[i]);
+                } catch (NumberFormatException e) {
+                    jobs = 0;
+                }
+                if (jobs <= 0)
+                    usage(String.format("invalid number of jobs '%s'", args[i]));
+            } else if (arg.equals("--cache")) {
+                if (++i == args.length)
+                    usage(String.format("missing value for '%s'", arg));
+                cacheDir = args[i];
+            } else if (arg.equals("--cache-size")) {
+                if (++i == args.length)
+                    usage(String.format("missing value for '%s'", arg));
+                try {
+                    cacheSize = Long.parseLong(args[i]);
+                } catch (NumberFormatException e) {
+                    cacheSize = 0;
+                }
+                if (cacheSize <= 0)
+                    usage(String.format("invalid cache size '%s'", args[i]));
+            } else {
+                files.add(arg);
+            }
+        }
+        if (search != null) {
+            if (!files.isEmpty() || server || client || watch || jobs > 0 || cacheDir != null)
+                usage("'--search' takes no input file nor other mode");
+            search(search.get(0), search.get(1), parallel ? ForkJoinPool.commonPool() : null);
+            return;
+        }
+        if (server) {
+            if (!files.isEmpty() || client || watch || parallel || jobs > 0 || cacheDir != null)
+                usage("'--server' takes no input file nor other mode");
+            serve(port);
+            return;
+        }
+        if (files.isEmpty())
+            usage("no input file");
+
+        if (client) {
+            if (watch || parallel || jobs > 0 || cacheDir != null)
+                usage("'--client' cannot be used with other modes");
+            compileOnServer(expand(files), port);
+            return;
+        }
+
+        if (watch) {
+            if (jobs > 0 || cacheDir != null)
+                usage("'--watch' cannot be used with batch mode");
+            if (parallel)
+                usage("'--watch' cannot be used with '--parallel'");
+            try {
+                new Watch(expand(files)).run();
+            } catch (IOException e) {
+                System.err.println(Compiler.describe(e));
+                System.exit(1);
+            }
+            return;
+        }
+
+        boolean batch = jobs > 0 || cacheDir != null || files.stream().anyMatch(f -> new File(f).isDirectory());
+        if (batch) {
+            // Files are already checked concurrently, one per thread
+            if (parallel)
+                usage("'--parallel' cannot be used with batch mode");
+            if (jobs == 0)
+                jobs = Runtime.getRuntime().availableProcessors();
+            Cache cache = null;
+            if (cacheDir != null) {
+                try {
+                    cache = new Cache(Paths.get(cacheDir), cacheSize << 20);
+                } catch (IOException e) {
+                    usage(String.format("cannot open the cache '%s': %s", cacheDir, e.getMessage()));
+                }
+            }
+            new Batch(jobs, cache).run(expand(files));
+            return;
+        }
+
+        compileLocally(files, parallel ? ForkJoinPool.commonPool() : null);
+    }
+
+    /**
+     * Prints the document of an equivalence chain from `start` to `target`,
+     * found by a search over the equivalence rules.
+     */
+    private static void search(String start, String target, ForkJoinPool pool) {
+        String source = String.format("equivalence.\n%s\n≡ %s [Search]\n", start, target);
+        Proof proof = null;
+        try {
+            proof = ASTBuilder.local().parse(new ByteArrayInputStream(source.getBytes(StandardCharsets.UTF_8)));
+        } catch (IOException | ASTBuilder.ParserException e) {
+            usage("cannot parse the propositions to search between");
+        }
+        Proposition from = proof.lines.get(0).proposition;
+        Proposition to = proof.lines.get(1).proposition;
+        if (Semantics.equivalent(from, to) == Semantics.Verdict.NO)
+            usage("the propositions are not equivalent");
+        var search = new ChainSearch(new ChainSearch.Config());
+        var chain = search.search(from, to, pool);
+        if (chain == null) {
+            System.err.println(String.format(
+                        "no equivalence chain found, after visiting %d propositions", search.visited()));
             System.exit(1);
         }
-        for (String file : args) {
+        System.out.print(Compiler.equivalence(chain));
+    }
+
+    private static void serve(int port) {
+        try (var server = new Server(port)) {
+            System.err.println(String.format("listening on port %d", server.port()));
+            long nanos = server.warmUp();
+            System.err.println(String.format("warmed up in %d ms", nanos / 1_000_000));
+            server.run();
+        } catch (IOException e) {
+            System.err.println(Compiler.describe(e));
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Compiles the files on the server listening on `port`, or locally if
+     * there is none.
+     */
+    private static void compileOnServer(List<String> files, int port) {
+        try (var client = new Client(port)) {
+            for (String file : files) {
+                System.err.println(String.format("compiling '%s'...", file));
+                byte[] source;
+                try {
+                    source = Files.readAllBytes(Paths.get(file));
+                } catch (IOException e) {
+                    System.err.println(Compiler.describe(e));
+                    continue;
+                }
+                // Failures of the connection are not the file's, and end the loop
+                String document;
+                try {
+                    document = client.compile(source);
+                } catch (Client.CompileException e) {
+                    System.err.println(e.getMessage());
+                    continue;
+                }
+                try {
+                    Files.writeString(Paths.get(Compiler.outputFile(file)), document);
+                } catch (IOException e) {
+                    System.err.println(Compiler.describe(e));
+                    continue;
+                }
+                System.err.println(String.format("'%s' compilation complete", file));
+            }
+        } catch (ConnectException e) {
+            System.err.println(String.format("no server on port %d, compiling locally", port));
+            compileLocally(files, null);
+        } catch (IOException e) {
+            System.err.println(Compiler.describe(e));
+            System.exit(1);
+        }
+    }
+
+    private static void compileLocally(List<String> files, ForkJoinPool pool) {
+        for (String file : files) {
             try {
                 System.err.println(String.format("compiling '%s'...", file));
-                var proof = new ASTBuilder().parse(new FileInputStream(file));
-                Step conclusion = FormatChecker.check(proof);
-                var lines = new Optimizer().optimize(conclusion);
-                var codegen = proof.equivalence ? new LatexEquiv() : new Latex();
-                String latex = codegen.generate(lines);
-                var baseName = file.endsWith(".proof") ? file.substring(0, file.length() - ".proof".length()) : file;
-                var output = new FileOutputStream(baseName + ".tex");
-                output.write(String.format(LATEX_FORMAT, latex).getBytes());
-                output.close();
+                Compiler.Document document;
+                try (var input = new FileInputStream(file)) {
+                    document = Compiler.compile(input, pool);
+                }
+                document.write(Compiler.outputFile(file));
                 System.err.println(String.format("'%s' compilation complete", file));
-            } catch (IOException e) {
-                System.err.println("IO Error: " + e.getMessage());
-            } catch (ASTBuilder.ParserException e) {
-                System.err.println("Parser Error");
-            } catch (FormatChecker.FormatCheckException e) {
-                System.err.println(String.format("Format Error: %s", e.getMessage()));
-            } catch (Step.RuleCheckException e) {
-                System.err.println(String.format("Rule Error: %s", e.getMessage()));
+            } catch (IOException | ASTBuilder.ParserException
+                    | FormatChecker.FormatCheckException | Step.RuleCheckException e) {
+                System.err.println(Compiler.describe(e));
+            }
+        }
+    }
+
+    /**
+     * Replaces directories by the `.proof` files they contain, in name order.
+     */
+    private static List<String> expand(List<String> paths) {
+        List<String> files = new ArrayList<>();
+        for (String path : paths) {
+            File[] children = new File(path).listFiles((dir, name) -> name.endsWith(".proof"));
+            if (children == null) {
+                files.add(path);
+            } else {
+                Arrays.sort(children);
+                for (File child : children)
+                    files.add(child.getPath());
             }
         }
+        return files;
     }
 }
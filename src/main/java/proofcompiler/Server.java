@@ -0,0 +1,187 @@
+package proofcompiler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import proofcompiler.generator.ProofGenerator;
+
+/**
+ * Resident compile server, so that compiling a file does not pay for the
+ * startup of a JVM, the initialization of the rules and cold code.
+ *
+ * The server listens on a loopback TCP port. A connection carries any
+ * number of requests, which are answered in order. Headers are lines of
+ * ASCII text, each followed by a body of the length it gives:
+ *
+ *   request:  `COMPILE <n>`, followed by the n bytes of the source
+ *   response: `OK <n>`, followed by the n bytes of the document in UTF-8,
+ *             or `ERROR <n>`, followed by the n bytes of the description
+ *             of the error in UTF-8
+ *
+ * A malformed request closes the connection. Connections are served
+ * concurrently, each on its own thread.
+ */
+public class Server implements Closeable {
+    public static final int DEFAULT_PORT = 7311;
+
+    static final String COMPILE = "COMPILE";
+    static final String OK = "OK";
+    static final String ERROR = "ERROR";
+
+    private static final int MAX_HEADER = 1024;
+    static final int MAX_BODY = 64 << 20;
+
+    private final ServerSocket socket;
+    private final ExecutorService connections = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "proofcompiler-connection");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Listens on `port` of the loopback interface, or on any free port if
+     * `port` is 0.
+     */
+    public Server(int port) throws IOException {
+        this.socket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+    }
+
+    public int port() {
+        return socket.getLocalPort();
+    }
+
+    /**
+     * Compiles generated proofs, so that the rules are initialized and the
+     * compiler is compiled by the JIT before the first request.
+     * Returns the time it took in nanoseconds.
+     */
+    public long warmUp() {
+        long start = System.nanoTime();
+        var config = new ProofGenerator.Config();
+        for (int i = 0; i < 20; i++) {
+            config.seed = i;
+            var generator = new ProofGenerator(config);
+            for (String source : new String[]{generator.proof(), generator.equivalence()})
+                compile(source.getBytes(StandardCharsets.UTF_8));
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Accepts connections until the server is closed.
+     */
+    public void run() throws IOException {
+        try {
+            while (true) {
+                Socket connection = socket.accept();
+                connections.execute(() -> serve(connection));
+            }
+        } catch (SocketException e) {
+            if (!socket.isClosed())
+                throw e;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+        connections.shutdownNow();
+    }
+
+    private static void serve(Socket connection) {
+        try (connection;
+             var in = new BufferedInputStream(connection.getInputStream());
+             var out = new BufferedOutputStream(connection.getOutputStream())) {
+            connection.setTcpNoDelay(true);
+            String header;
+            while ((header = readHeader(in)) != null) {
+                int length = parseLength(header, COMPILE);
+                if (length < 0 || length > MAX_BODY) {
+                    out.write(error("malformed request"));
+                    return;
+                }
+                byte[] source = in.readNBytes(length);
+                if (source.length < length)
+                    return;
+                out.write(compile(source));
+                out.flush();
+            }
+        } catch (IOException e) {
+            // The client went away
+        }
+    }
+
+    /**
+     * Returns the response to compiling `source`.
+     */
+    private static byte[] compile(byte[] source) {
+        byte[] text;
+        try {
+            var document = Compiler.compile(new ByteArrayInputStream(source), null);
+            text = document.toString().getBytes(StandardCharsets.UTF_8);
+        } catch (Exception e) {
+            return error(Compiler.describe(e));
+        }
+        var response = new ByteArrayOutputStream(text.length + 16);
+        response.writeBytes(header(OK + " " + text.length));
+        response.writeBytes(text);
+        return response.toByteArray();
+    }
+
+    /**
+     * Reads a header line in UTF-8, without its end. Returns null at the
+     * end of the stream, and throws if the line is too long.
+     */
+    static String readHeader(InputStream in) throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        int c;
+        while ((c = in.read()) != '\n') {
+            if (c < 0) {
+                if (bytes.size() == 0)
+                    return null;
+                throw new IOException("truncated header");
+            }
+            if (bytes.size() == MAX_HEADER)
+                throw new IOException("header too long");
+            bytes.write(c);
+        }
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+
+    static byte[] header(String header) {
+        return (header + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] error(String description) {
+        byte[] text = description.getBytes(StandardCharsets.UTF_8);
+        var response = new ByteArrayOutputStream(text.length + 16);
+        response.writeBytes(header(ERROR + " " + text.length));
+        response.writeBytes(text);
+        return response.toByteArray();
+    }
+
+    /**
+     * Returns the length in a header `<keyword> <n>`, or -1 if the header
+     * has another form.
+     */
+    static int parseLength(String header, String keyword) {
+        if (!header.startsWith(keyword + " "))
+            return -1;
+        try {
+            return Integer.parseInt(header.substring(keyword.length() + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package proofcompiler;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+/**
+ * Recompiles proof files whenever they change, until interrupted.
+ *
+ * Each file keeps the verdicts of its last check, so that only the lines
+ * affected by an edit are re-checked. Events arriving within
+ * `SETTLE_MILLIS` of each other are handled together, since editors
+ * usually write a file in several steps.
+ */
+public class Watch {
+    private static final long SETTLE_MILLIS = 20;
+
+    /**
+     * A watched file and the state of its last compilation.
+     */
+    private static class Watched {
+        final String file;
+        final IncrementalChecker checker = new IncrementalChecker();
+        byte[] source = null;
+
+        Watched(String file) {
+            this.file = file;
+        }
+    }
+
+    // By absolute path, in input order
+    private final Map<Path, Watched> watched = new LinkedHashMap<>();
+
+    public Watch(List<String> files) {
+        for (String file : files)
+            watched.put(Paths.get(file).toAbsolutePath().normalize(), new Watched(file));
+    }
+
+    /**
+     * Compiles all files, then recompiles them as they change.
+     * Returns when the thread is interrupted, and throws once no directory
+     * can be watched anymore.
+     */
+    public void run() throws IOException {
+        try (WatchService service = FileSystems.getDefault().newWatchService()) {
+            Set<Path> dirs = new HashSet<>();
+            for (Path path : watched.keySet())
+                if (dirs.add(path.getParent()))
+                    path.getParent().register(service, ENTRY_CREATE, ENTRY_MODIFY);
+            for (Watched file : watched.values())
+                compile(file);
+            System.err.println("watching for changes...");
+
+            while (true) {
+                Set<Path> changed = new LinkedHashSet<>();
+                WatchKey key = service.take();
+                do {
+                    Path dir = (Path) key.watchable();
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == OVERFLOW) {
+                            // Events were lost, any file of the directory may have changed
+                            for (Path path : watched.keySet())
+                                if (path.getParent().equals(dir))
+                                    changed.add(path);
+                        } else {
+                            Path path = dir.resolve((Path) event.context());
+                            if (watched.containsKey(path))
+                                changed.add(path);
+                        }
+                    }
+                    if (!key.reset()) {
+                        // Deleted or inaccessible, no event will come from it
+                        dirs.remove(dir);
+                        for (var file : watched.entrySet())
+                            if (file.getKey().getParent().equals(dir))
+                                System.err.println(String.format(
+                                            "'%s': no longer watched, its directory is gone", file.getValue().file));
+                    }
+                    key = service.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS);
+                } while (key != null);
+                for (Path path : changed)
+                    compile(watched.get(path));
+                if (dirs.isEmpty())
+                    throw new IOException("no directory is watched anymore");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Compiles a file if its content changed since it was last compiled,
+     * and reports the outcome to stderr.
+     */
+    private static void compile(Watched file) {
+        byte[] source;
+        try {
+            source = Files.readAllBytes(Paths.get(file.file));
+        } catch (IOException e) {
+            // Possibly being replaced, wait for the next event
+            System.err.println(String.format("'%s': %s", file.file, Compiler.describe(e)));
+            return;
+        }
+        if (Arrays.equals(source, file.source))
+            return;
+        file.source = source;
+
+        long start = System.nanoTime();
+        try {
+            var document = Compiler.recompile(new ByteArrayInputStream(source), file.checker);
+            document.write(Compiler.outputFile(file.file));
+            System.err.println(String.format(
+                        "'%s' compiled in %.1f ms, %d lines re-checked",
+                        file.file, (System.nanoTime() - start) / 1e6, file.checker.checked()));
+        } catch (Exception e) {
+            System.err.println(String.format("'%s': %s", file.file, Compiler.describe(e)));
+        }
+    }
+}
@@ -1,87 +1,181 @@
 package proofcompiler.ast;
 
-import java.util.Collections;
-import java.util.ArrayList;
-import java.util.stream.Collectors;
+import java.util.Arrays;
 import java.util.List;
 
 /**
  * A line number. Immutable.
+ *
+ * Numbers of at most `PACKED_LEVELS` levels whose parts fit in
+ * `PACKED_BITS` bits are packed into a long, the first level in the most
+ * significant bits, so that prefixes can be compared with a mask. Other
+ * numbers are stored in an array. The representation of a number is
+ * canonical.
  */
 public class Number implements Comparable<Number> {
-    private final List<Integer> number;
+    private static final int PACKED_LEVELS = 4;
+    private static final int PACKED_BITS = 16;
+    private static final long PART_MASK = (1L << PACKED_BITS) - 1;
+
+    private final int levels;
+    private final long packed;
+    // null if the number is packed
+    private final int[] parts;
+    private final int hash;
 
     public static final Number ZERO = new Number(List.of(0));
 
     public Number(List<Integer> number) {
-        this.number = Collections.unmodifiableList(number);
+        this(number.stream().mapToInt(Integer::intValue).toArray());
     }
 
-    public int levels() {
-        return number.size();
+    private Number(int[] parts) {
+        this(parts.length, pack(parts), fits(parts) ? null : parts);
+    }
+
+    private Number(int levels, long packed, int[] parts) {
+        this.levels = levels;
+        this.packed = packed;
+        this.parts = parts;
+        int hash = 1;
+        for (int i = 0; i < levels; i++)
+            hash = 31 * hash + part(i);
+        this.hash = hash;
     }
 
-    private List<Integer> nextAsList(int extra) {
-        List<Integer> list = new ArrayList<>(levels() + extra);
-        list.addAll(number);
-        list.set(levels() - 1, list.get(levels() - 1) + 1);
-        return list;
+    private static boolean fits(int[] parts) {
+        if (parts.length > PACKED_LEVELS)
+            return false;
+        for (int part : parts)
+            if ((part & ~PART_MASK) != 0)
+                return false;
+        return true;
+    }
+
+    private static long pack(int[] parts) {
+        if (!fits(parts))
+            return 0;
+        long packed = 0;
+        for (int i = 0; i < parts.length; i++)
+            packed |= (long) parts[i] << shift(i);
+        return packed;
+    }
+
+    private static int shift(int level) {
+        return PACKED_BITS * (PACKED_LEVELS - 1 - level);
+    }
+
+    /**
+     * Mask of the first `levels` levels of a packed number.
+     */
+    private static long prefix(int levels) {
+        return levels == 0 ? 0 : -1L << shift(levels - 1);
+    }
+
+    private int part(int level) {
+        if (parts != null)
+            return parts[level];
+        return (int) ((packed >>> shift(level)) & PART_MASK);
+    }
+
+    private int[] toArray() {
+        if (parts != null)
+            return parts.clone();
+        int[] result = new int[levels];
+        for (int i = 0; i < levels; i++)
+            result[i] = part(i);
+        return result;
+    }
+
+    public int levels() {
+        return levels;
     }
 
     public Number next() {
-        return new Number(nextAsList(0));
+        int last = levels - 1;
+        if (parts == null && part(last) < PART_MASK)
+            return new Number(levels, packed + (1L << shift(last)), null);
+        int[] result = toArray();
+        result[last]++;
+        return new Number(result);
     }
 
     public Number increaseLevel() {
-        List<Integer> list = nextAsList(1);
-        list.add(1);
-        return new Number(list);
+        int last = levels - 1;
+        if (parts == null && levels < PACKED_LEVELS && part(last) < PART_MASK)
+            return new Number(levels + 1, packed + (1L << shift(last)) + (1L << shift(levels)), null);
+        int[] result = Arrays.copyOf(toArray(), levels + 1);
+        result[last]++;
+        result[levels] = 1;
+        return new Number(result);
     }
 
     public Number decreaseLevel() {
-        return new Number(number.subList(0, levels() - 1));
+        if (parts == null)
+            return new Number(levels - 1, packed & prefix(levels - 1), null);
+        return new Number(Arrays.copyOf(parts, levels - 1));
     }
 
     public boolean hasAccess(Number that) {
-        if (this.levels() < that.levels())
+        if (this.levels < that.levels)
             return false;
-        for (int i = 0; i < that.levels() - 1; i++)
-            if (!this.number.get(i).equals(that.number.get(i)))
+        int last = that.levels - 1;
+        if (this.parts == null && that.parts == null) {
+            if (((this.packed ^ that.packed) & prefix(last)) != 0)
                 return false;
-        int last = that.levels() - 1;
-        return that.number.get(last) < this.number.get(last);
+        } else {
+            for (int i = 0; i < last; i++)
+                if (this.part(i) != that.part(i))
+                    return false;
+        }
+        return that.part(last) < this.part(last);
     }
 
     @Override
     public int compareTo(Number that) {
-        int thisSize = this.levels();
-        int thatSize = that.levels();
-        for (int i = 0; i < thisSize && i < thatSize; i++) {
-            int thisNum = this.number.get(i);
-            int thatNum = that.number.get(i);
-            if (thisNum != thatNum)
-                return Integer.compare(thisNum, thatNum);
+        int common = Math.min(this.levels, that.levels);
+        if (this.parts == null && that.parts == null) {
+            long mask = prefix(common);
+            int result = Long.compareUnsigned(this.packed & mask, that.packed & mask);
+            if (result != 0)
+                return result;
+        } else {
+            for (int i = 0; i < common; i++) {
+                int thisNum = this.part(i);
+                int thatNum = that.part(i);
+                if (thisNum != thatNum)
+                    return Integer.compare(thisNum, thatNum);
+            }
         }
-        return Integer.compare(thatSize, thisSize);
+        return Integer.compare(that.levels, this.levels);
     }
 
     @Override
     public String toString() {
-        return String.join(".", number.stream().
-                map(x -> x.toString())
-                .collect(Collectors.toUnmodifiableList()));
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < levels; i++) {
+            if (i > 0)
+                sb.append('.');
+            sb.append(part(i));
+        }
+        return sb.toString();
     }
 
     @Override
     public boolean equals(Object o) {
+        if (this == o)
+            return true;
         if (!(o instanceof Number))
             return false;
         Number other = (Number) o;
-        return number.equals(other.number);
+        return hash == other.hash
+            && levels == other.levels
+            && packed == other.packed
+            && Arrays.equals(parts, other.parts);
     }
 
     @Override
     public int hashCode() {
-        return number.hashCode();
+        return hash;
     }
 }
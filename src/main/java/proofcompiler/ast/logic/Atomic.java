@@ -5,9 +5,11 @@ package proofcompiler.ast.logic;
  */
 public class Atomic implements Proposition {
     public final String name;
+    private final int hash;
 
     public Atomic(String name) {
         this.name = name;
+        this.hash = name.hashCode();
     }
 
     @Override
@@ -17,15 +19,18 @@ public class Atomic implements Proposition {
 
     @Override
     public boolean equals(Object o) {
-        if (!(o instanceof Atomic))
+        if (this == o)
+            return true;
+        // Meta variables are never equal to atomic propositions of the same name
+        if (o == null || o.getClass() != getClass())
             return false;
         Atomic that = (Atomic) o;
-        return this.name.equals(that.name);
+        return this.hash == that.hash && this.name.equals(that.name);
     }
 
     @Override
     public int hashCode() {
-        return name.hashCode();
+        return hash;
     }
 
     @Override
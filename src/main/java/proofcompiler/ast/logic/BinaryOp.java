@@ -10,6 +10,7 @@ public class BinaryOp extends Operator {
     public final Type type;
     public final Proposition lhs;
     public final Proposition rhs;
+    private final int hash;
 
     public static enum Type {
         AND {
@@ -45,6 +46,7 @@ public class BinaryOp extends Operator {
         this.type = type;
         this.lhs = lhs;
         this.rhs = rhs;
+        this.hash = Objects.hash(type, lhs, rhs);
     }
 
     @Override
@@ -60,21 +62,24 @@ public class BinaryOp extends Operator {
 
     @Override
     public boolean equals(Object o) {
+        if (this == o)
+            return true;
         if (!(o instanceof BinaryOp))
             return false;
         BinaryOp that = (BinaryOp) o;
-        return this.type == that.type
+        return this.hash == that.hash
+            && this.type == that.type
             && this.lhs.equals(that.lhs)
             && this.rhs.equals(that.rhs);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(type, lhs, rhs);
+        return hash;
     }
 
     @Override
     public String toString() {
-        return wrap(lhs, Associativity.LEFT) + type + wrap(rhs, Associativity.RIGHT);
+        return Printer.UNICODE.print(this);
     }
 }
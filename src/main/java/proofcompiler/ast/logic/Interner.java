@@ -0,0 +1,48 @@
+package proofcompiler.ast.logic;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Hash-consing table for propositions.
+ *
+ * Structurally equal propositions created through the factories in
+ * `Proposition` are the same object, so equality of interned propositions
+ * is decided by a pointer compare. Entries are weakly referenced and are
+ * dropped once no proof refers to them anymore.
+ *
+ * The table is split into independently locked segments so that concurrent
+ * parsers do not contend on a single lock.
+ */
+final class Interner {
+    private Interner() {}
+
+    private static final int SEGMENTS = 16;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final Map<Proposition, WeakReference<Proposition>>[] tables = new Map[SEGMENTS];
+
+    static {
+        for (int i = 0; i < SEGMENTS; i++)
+            tables[i] = new WeakHashMap<>();
+    }
+
+    /**
+     * Returns the canonical instance structurally equal to `prop`,
+     * registering `prop` as the canonical instance if there is none yet.
+     */
+    @SuppressWarnings("unchecked")
+    static <T extends Proposition> T intern(T prop) {
+        int hash = prop.hashCode();
+        var table = tables[(hash ^ (hash >>> 16)) & (SEGMENTS - 1)];
+        synchronized (table) {
+            var ref = table.get(prop);
+            Proposition canonical = ref == null ? null : ref.get();
+            if (canonical != null)
+                return (T) canonical;
+            table.put(prop, new WeakReference<>(prop));
+            return prop;
+        }
+    }
+}
@@ -2,15 +2,35 @@ package proofcompiler.ast.logic;
 
 /**
  * Meta variable in a propositional rule. Immutable.
+ *
+ * Meta variables of a compiled rule are numbered by a slot, which indexes
+ * the substitution used to unify the rule. Unnumbered meta variables have
+ * slot -1.
  */
 public class Meta extends Atomic {
+    public final int slot;
 
     public Meta(String name) {
+        this(name, -1);
+    }
+
+    public Meta(String name, int slot) {
         super(name);
+        this.slot = slot;
     }
 
     @Override
     public <T> T accept(PropositionVisitor<T> visitor) {
         return visitor.visit(this);
     }
+
+    @Override
+    public boolean equals(Object o) {
+        return super.equals(o) && this.slot == ((Meta) o).slot;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * super.hashCode() + slot;
+    }
 }
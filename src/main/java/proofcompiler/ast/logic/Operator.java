@@ -9,17 +9,4 @@ public abstract class Operator implements Proposition {
 
     public enum Associativity { LEFT, RIGHT, UNARY, NONE }
     public abstract Associativity associativity();
-
-    protected String wrap(Proposition that, Associativity position) {
-        String format;
-        if (this.precedence() < that.precedence())
-            format = "(%s)";
-        else if (this.precedence() > that.precedence())
-            format = "%s";
-        else if (associativity() == position)
-            format = "%s";
-        else
-            format = "(%s)";
-        return String.format(format, that);
-    }
 }
@@ -0,0 +1,136 @@
+package proofcompiler.ast.logic;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Function;
+
+/**
+ * Infix printer of propositions, with the parentheses required by the
+ * precedence and associativity of the operators.
+ *
+ * Propositions are printed with an explicit stack instead of recursion, so
+ * arbitrarily deep propositions can be printed, in time linear in their
+ * size. Operator tokens and parenthesization decisions are computed once.
+ * Subclasses choose the symbols.
+ */
+public abstract class Printer {
+
+    private static final BinaryOp.Type[] BINARY_TYPES = BinaryOp.Type.values();
+
+    /*
+     * Whether a binary operand of a binary operator is parenthesized,
+     * indexed by the ordinals of the operator and of the operand.
+     * Other operands are never parenthesized, except binary operands of
+     * unary operators, which always are.
+     */
+    private static final boolean[][] WRAP_LHS = wrap(Operator.Associativity.LEFT);
+    private static final boolean[][] WRAP_RHS = wrap(Operator.Associativity.RIGHT);
+
+    private static final String OPEN = "(";
+    private static final String CLOSE = ")";
+
+    /**
+     * Printer of the notation used by `toString`.
+     */
+    static final Printer UNICODE = new Printer(UnaryOp.Type::toString, BinaryOp.Type::toString) {
+        @Override
+        protected String leaf(Proposition prop) {
+            return prop.toString();
+        }
+    };
+
+    private final String[] unary;
+    private final String[] binary;
+
+    /**
+     * @param unary text of a unary operator, including any separator
+     *              between the operator and its operand
+     * @param binary text of a binary operator, including any separators
+     *               around it
+     */
+    protected Printer(Function<UnaryOp.Type, String> unary, Function<BinaryOp.Type, String> binary) {
+        UnaryOp.Type[] unaryTypes = UnaryOp.Type.values();
+        this.unary = new String[unaryTypes.length];
+        for (UnaryOp.Type type : unaryTypes)
+            this.unary[type.ordinal()] = unary.apply(type);
+        this.binary = new String[BINARY_TYPES.length];
+        for (BinaryOp.Type type : BINARY_TYPES)
+            this.binary[type.ordinal()] = binary.apply(type);
+    }
+
+    private static boolean[][] wrap(Operator.Associativity position) {
+        boolean[][] table = new boolean[BINARY_TYPES.length][BINARY_TYPES.length];
+        for (BinaryOp.Type parent : BINARY_TYPES) {
+            for (BinaryOp.Type child : BINARY_TYPES) {
+                boolean wrap;
+                if (parent.precedence() != child.precedence())
+                    wrap = parent.precedence() < child.precedence();
+                else
+                    wrap = parent.associativity() != position;
+                table[parent.ordinal()][child.ordinal()] = wrap;
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Returns the text of a literal or an atomic proposition.
+     */
+    protected abstract String leaf(Proposition prop);
+
+    public final String print(Proposition prop) {
+        StringBuilder sb = new StringBuilder();
+        try {
+            print(prop, sb);
+        } catch (IOException e) {
+            // StringBuilder does not throw
+            throw new UncheckedIOException(e);
+        }
+        return sb.toString();
+    }
+
+    public final void print(Proposition prop, Appendable out) throws IOException {
+        // Propositions still to print, and tokens still to append
+        Deque<Object> stack = new ArrayDeque<>();
+        Object top = prop;
+        while (true) {
+            if (top instanceof String) {
+                out.append((String) top);
+            } else if (top instanceof UnaryOp) {
+                UnaryOp op = (UnaryOp) top;
+                out.append(unary[op.type.ordinal()]);
+                if (op.arg instanceof BinaryOp) {
+                    out.append(OPEN);
+                    stack.push(CLOSE);
+                }
+                // Continue with the operand without going through the stack
+                top = op.arg;
+                continue;
+            } else if (top instanceof BinaryOp) {
+                BinaryOp op = (BinaryOp) top;
+                int type = op.type.ordinal();
+                if (op.rhs instanceof BinaryOp && WRAP_RHS[type][((BinaryOp) op.rhs).type.ordinal()]) {
+                    stack.push(CLOSE);
+                    stack.push(op.rhs);
+                    stack.push(OPEN);
+                } else {
+                    stack.push(op.rhs);
+                }
+                stack.push(binary[type]);
+                if (op.lhs instanceof BinaryOp && WRAP_LHS[type][((BinaryOp) op.lhs).type.ordinal()]) {
+                    out.append(OPEN);
+                    stack.push(CLOSE);
+                }
+                top = op.lhs;
+                continue;
+            } else {
+                out.append(leaf((Proposition) top));
+            }
+            if (stack.isEmpty())
+                return;
+            top = stack.pop();
+        }
+    }
+}
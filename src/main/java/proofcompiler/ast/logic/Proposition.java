@@ -37,35 +37,52 @@ public interface Proposition {
     // Non-operators are atomic and can be considered highest precedence
     default int precedence() { return 0; }
 
+    /*
+     * The factories below return hash-consed instances: structurally equal
+     * propositions built through them are the same object.
+     */
+
     public static Atomic atomic(String name) {
-        return new Atomic(name);
+        return Interner.intern(new Atomic(name));
     }
 
     public static Meta meta(String name) {
-        return new Meta(name);
+        return Interner.intern(new Meta(name));
+    }
+
+    public static Meta meta(String name, int slot) {
+        return Interner.intern(new Meta(name, slot));
+    }
+
+    public static UnaryOp unary(UnaryOp.Type type, Proposition arg) {
+        return Interner.intern(new UnaryOp(type, arg));
+    }
+
+    public static BinaryOp binary(BinaryOp.Type type, Proposition lhs, Proposition rhs) {
+        return Interner.intern(new BinaryOp(type, lhs, rhs));
     }
 
     public static UnaryOp not(Proposition arg) {
-        return new UnaryOp(UnaryOp.Type.NOT, arg);
+        return unary(UnaryOp.Type.NOT, arg);
     }
 
     public static BinaryOp and(Proposition lhs, Proposition rhs) {
-        return new BinaryOp(BinaryOp.Type.AND, lhs, rhs);
+        return binary(BinaryOp.Type.AND, lhs, rhs);
     }
 
     public static BinaryOp or(Proposition lhs, Proposition rhs) {
-        return new BinaryOp(BinaryOp.Type.OR, lhs, rhs);
+        return binary(BinaryOp.Type.OR, lhs, rhs);
     }
 
     public static BinaryOp xor(Proposition lhs, Proposition rhs) {
-        return new BinaryOp(BinaryOp.Type.XOR, lhs, rhs);
+        return binary(BinaryOp.Type.XOR, lhs, rhs);
     }
 
     public static BinaryOp implies(Proposition lhs, Proposition rhs) {
-        return new BinaryOp(BinaryOp.Type.IMPLIES, lhs, rhs);
+        return binary(BinaryOp.Type.IMPLIES, lhs, rhs);
     }
 
     public static BinaryOp biconditional(Proposition lhs, Proposition rhs) {
-        return new BinaryOp(BinaryOp.Type.BICONDITIONAL, lhs, rhs);
+        return binary(BinaryOp.Type.BICONDITIONAL, lhs, rhs);
     }
 }
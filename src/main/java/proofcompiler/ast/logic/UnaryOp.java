@@ -8,6 +8,7 @@ import java.util.Objects;
 public class UnaryOp extends Operator {
     public final Type type;
     public final Proposition arg;
+    private final int hash;
 
     public static enum Type {
         NOT {
@@ -18,6 +19,7 @@ public class UnaryOp extends Operator {
     public UnaryOp(Type type, Proposition arg) {
         this.type = type;
         this.arg = arg;
+        this.hash = Objects.hash(type, arg);
     }
 
     @Override
@@ -30,19 +32,23 @@ public class UnaryOp extends Operator {
 
     @Override
     public boolean equals(Object o) {
+        if (this == o)
+            return true;
         if (!(o instanceof UnaryOp))
             return false;
         UnaryOp that = (UnaryOp) o;
-        return this.type == that.type && this.arg.equals(that.arg);
+        return this.hash == that.hash
+            && this.type == that.type
+            && this.arg.equals(that.arg);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(type, arg);
+        return hash;
     }
 
     @Override
     public String toString() {
-        return type + wrap(arg, Operator.Associativity.UNARY);
+        return Printer.UNICODE.print(this);
     }
 }
@@ -1,8 +1,24 @@
 package proofcompiler.codegen;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 import proofcompiler.ast.Line;
 
 public interface Codegen {
-    String generate(List<Line> lines);
+    /**
+     * Writes the code of `lines` to `out` as it is generated.
+     */
+    void generate(List<Line> lines, Appendable out) throws IOException;
+
+    default String generate(List<Line> lines) {
+        StringBuilder sb = new StringBuilder();
+        try {
+            generate(lines, sb);
+        } catch (IOException e) {
+            // StringBuilder does not throw
+            throw new UncheckedIOException(e);
+        }
+        return sb.toString();
+    }
 }
@@ -1,22 +1,25 @@
 package proofcompiler.codegen;
 
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Stream;
 import static java.util.stream.Collectors.toUnmodifiableList;
 import proofcompiler.ast.Line;
+import proofcompiler.ast.Number;
 import proofcompiler.ast.Rule;
 import proofcompiler.ast.logic.Proposition;
-import proofcompiler.ast.logic.Operator;
 import proofcompiler.ast.logic.Atomic;
 import proofcompiler.ast.logic.UnaryOp;
 import proofcompiler.ast.logic.BinaryOp;
-import proofcompiler.ast.logic.PropositionVisitor;
+import proofcompiler.ast.logic.Printer;
 import static proofcompiler.graph.Step.ASSUMPTION;
 import static proofcompiler.graph.Step.DPR;
 
 public class Latex implements Codegen {
-    private StringBuilder sb;
+    private Appendable out;
     private int indentLevel;
     private boolean newLine;
 
@@ -42,9 +45,25 @@ public class Latex implements Codegen {
             "demorgan's law",               "DeMorgan's Law"
             );
 
+    // Rule names are few, so their LaTeX names are computed once
+    private static final Map<String, String> RULE_NAMES = new ConcurrentHashMap<>();
+
+    private static final Printer PRINTER = new Printer(
+            type -> UNARY.get(type) + " ",
+            type -> " " + BINARY.get(type) + " ") {
+        @Override
+        protected String leaf(Proposition p) {
+            if (p == Proposition.TRUE)
+                return "\\mathsf{T}";
+            if (p == Proposition.FALSE)
+                return "\\mathsf{F}";
+            return ((Atomic) p).name;
+        }
+    };
+
     @Override
-    public String generate(List<Line> lines) {
-        sb = new StringBuilder();
+    public void generate(List<Line> lines, Appendable out) throws IOException {
+        this.out = out;
         indentLevel = 0;
         newLine = true;
         begin("proof", null); add("\\hfill\\par"); brk();
@@ -55,55 +74,78 @@ public class Latex implements Codegen {
             } else if (line.rule.name.equals(DPR)) {
                 end("tabular"); add("} \\\\"); brk();
             }
-            add(String.format("%s. & \\( %s \\) & [ %s ] \\\\",
-                        line.number,
-                        prop(line.proposition),
-                        rule(line.rule)));
+            add(line.number.toString());
+            out.append(". & \\( ");
+            prop(line.proposition, out);
+            out.append(" \\) & [ ");
+            rule(line.rule, out);
+            out.append(" ] \\\\");
             brk();
         }
         end("tabular"); add("\\par"); brk();
         end("proof"); brk();
-        String result = sb.toString();
-        sb = null;
-        return result;
+        this.out = null;
     }
 
-    private void add(String s) {
-        if (newLine)
-            sb.append("    ".repeat(indentLevel));
-        else
-            sb.append(" ");
-        sb.append(s);
+    /**
+     * Starts a new token: indents it on a new line, or separates it from
+     * the previous token.
+     */
+    private void separate() throws IOException {
+        if (newLine) {
+            for (int i = 0; i < indentLevel; i++)
+                out.append("    ");
+        } else
+            out.append(" ");
         newLine = false;
     }
 
-    private void brk() {
-        sb.append("\n");
+    private void add(String s) throws IOException {
+        separate();
+        out.append(s);
+    }
+
+    private void brk() throws IOException {
+        out.append("\n");
         newLine = true;
     }
 
-    private void begin(String env, String arg) {
+    private void begin(String env, String arg) throws IOException {
         String param = arg == null ? "" : String.format("{%s}", arg);
         add(String.format("\\begin{%s}%s", env, param));
         indentLevel++;
     }
 
-    private void end(String env) {
+    private void end(String env) throws IOException {
         indentLevel--;
         add(String.format("\\end{%s}", env));
     }
 
     public static String ruleName(Rule rule) {
-        String ruleName = RULE.get(rule.name);
-        if (ruleName == null)
-            ruleName = capitalize(rule.name);
-        return ruleName;
+        return RULE_NAMES.computeIfAbsent(rule.name, name -> {
+            String ruleName = RULE.get(name);
+            return ruleName != null ? ruleName : capitalize(name);
+        });
     }
 
     public static String rule(Rule rule) {
         return new Rule(ruleName(rule), rule.refs).toString();
     }
 
+    /**
+     * Writes `rule(rule)` to `out`.
+     */
+    public static void rule(Rule rule, Appendable out) throws IOException {
+        out.append(ruleName(rule));
+        if (rule.refs.isEmpty())
+            return;
+        Number[] refs = rule.refs.toArray(new Number[rule.refs.size()]);
+        Arrays.sort(refs);
+        out.append(": ").append(refs[0].toString());
+        for (int i = 1; i < refs.length; i++)
+            out.append(", ").append(refs[i].toString());
+    }
+
     public static String capitalize(String s) {
         return String.join(" ", Stream.of(s.split(" "))
             .map(w -> w.equals("of") ? w : (w.substring(0, 1).toUpperCase() + w.substring(1)))
@@ -111,48 +153,10 @@ public class Latex implements Codegen {
     }
 
     public static String prop(Proposition p) {
-        class PropVisitor extends PropositionVisitor<String> {
-            private String wrap(Operator parent, Proposition child, Operator.Associativity position) {
-                String format;
-                if (parent.precedence() < child.precedence())
-                    format = "(%s)";
-                else if (parent.precedence() > child.precedence())
-                    format = "%s";
-                else if (parent.associativity() == position)
-                    format = "%s";
-                else
-                    format = "(%s)";
-                return String.format(format, visit(child));
-            }
-
-            @Override
-            public String visitTrue() {
-                return "\\mathsf{T}";
-            }
-
-            @Override
-            public String visitFalse() {
-                return "\\mathsf{F}";
-            }
-
-            @Override
-            public String visit(Atomic p) {
-                return p.name;
-            }
-
-            @Override
-            public String visit(UnaryOp p) {
-                return String.format("%s %s", UNARY.get(p.type), wrap(p, p.arg, Operator.Associativity.UNARY));
-            }
+        return PRINTER.print(p);
+    }
 
-            @Override
-            public String visit(BinaryOp p) {
-                return String.format("%s %s %s",
-                        wrap(p, p.lhs, Operator.Associativity.LEFT),
-                        BINARY.get(p.type),
-                        wrap(p, p.rhs, Operator.Associativity.RIGHT));
-            }
-        }
-        return new PropVisitor().visit(p);
+    public static void prop(Proposition p, Appendable out) throws IOException {
+        PRINTER.print(p, out);
     }
 }
@@ -1,5 +1,6 @@
 package proofcompiler.codegen;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Stream;
@@ -11,58 +12,67 @@ import static proofcompiler.graph.Step.ASSUMPTION;
 import static proofcompiler.graph.Step.DPR;
 
 public class LatexEquiv implements Codegen {
-    private StringBuilder sb;
+    private Appendable out;
     private int indentLevel;
     private boolean newLine;
 
     @Override
-    public String generate(List<Line> lines) {
-        sb = new StringBuilder();
+    public void generate(List<Line> lines, Appendable out) throws IOException {
+        this.out = out;
         indentLevel = 0;
         newLine = true;
         begin("align*", null); brk();
         for (Line line : lines) {
             assert !line.rule.name.equals(ASSUMPTION);
             assert !line.rule.name.equals(DPR);
-            if (line.rule.name.equals(GIVEN))
-                add(String.format("%s", Latex.prop(line.proposition)));
-            else
-                add(String.format("&\\equiv %s && \\text{[ %s ]} \\\\",
-                            Latex.prop(line.proposition),
-                            rule(line.rule)));
+            separate();
+            if (line.rule.name.equals(GIVEN)) {
+                Latex.prop(line.proposition, out);
+            } else {
+                out.append("&\\equiv ");
+                Latex.prop(line.proposition, out);
+                out.append(" && \\text{[ ").append(rule(line.rule)).append(" ]} \\\\");
+            }
             brk();
         }
         end("align*"); brk();
-        String result = sb.toString();
-        sb = null;
-        return result;
+        this.out = null;
     }
 
     public static String rule(Rule r) {
         return Latex.ruleName(r);
     }
 
-    private void add(String s) {
-        if (newLine)
-            sb.append("    ".repeat(indentLevel));
-        else
-            sb.append(" ");
-        sb.append(s);
+    /**
+     * Starts a new token: indents it on a new line, or separates it from
+     * the previous token.
+     */
+    private void separate() throws IOException {
+        if (newLine) {
+            for (int i = 0; i < indentLevel; i++)
+                out.append("    ");
+        } else
+            out.append(" ");
         newLine = false;
     }
 
-    private void brk() {
-        sb.append("\n");
+    private void add(String s) throws IOException {
+        separate();
+        out.append(s);
+    }
+
+    private void brk() throws IOException {
+        out.append("\n");
         newLine = true;
     }
 
-    private void begin(String env, String arg) {
+    private void begin(String env, String arg) throws IOException {
         String param = arg == null ? "" : String.format("{%s}", arg);
         add(String.format("\\begin{%s}%s", env, param));
         indentLevel++;
     }
 
-    private void end(String env) {
+    private void end(String env) throws IOException {
         indentLevel--;
         add(String.format("\\end{%s}", env));
     }
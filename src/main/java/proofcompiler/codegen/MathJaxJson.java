@@ -1,16 +1,27 @@
 package proofcompiler.codegen;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
 import java.util.List;
-import java.util.ArrayList;
-import java.util.Map;
-import java.util.Deque;
-import java.util.ArrayDeque;
 import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
 import proofcompiler.ast.Line;
 import static proofcompiler.graph.Step.ASSUMPTION;
 import static proofcompiler.graph.Step.DPR;
 
+/**
+ * JSON array of the lines, for rendering with MathJax. Each subproof is an
+ * object whose "subproof" member is the array of its lines, followed by
+ * the line that discharges it.
+ *
+ * The JSON is written to the output while walking the lines, without
+ * building a tree first.
+ */
 public class MathJaxJson implements Codegen {
+    // Thread safe, shared by all generators for the configuration of writers
+    private static final Gson GSON = new Gson();
+
     private final boolean equivalence;
 
     public MathJaxJson(boolean equivalence) {
@@ -18,31 +29,74 @@ public class MathJaxJson implements Codegen {
     }
 
     @Override
-    public String generate(List<Line> lines) {
-        Deque<List<Object>> stack = new ArrayDeque<>();
-        List<Object> current = new ArrayList<>();
+    public void generate(List<Line> lines, Appendable out) throws IOException {
+        Writer writer = out instanceof Writer ? (Writer) out : new AppendableWriter(out);
+        JsonWriter json = GSON.newJsonWriter(writer);
+        json.beginArray();
         for (Line line : lines) {
             if (line.rule.name.equals(ASSUMPTION)) {
                 assert !equivalence;
-                stack.addLast(current);
-                current = new ArrayList<>();
+                json.beginObject();
+                json.name("subproof");
+                json.beginArray();
             } else if (line.rule.name.equals(DPR)) {
                 assert !equivalence;
-                Map<String, Object> sub = Map.of("subproof", current);
-                current = stack.removeLast();
-                current.add(sub);
+                json.endArray();
+                json.endObject();
             }
+            json.beginObject();
             if (equivalence) {
-                current.add(Map.of(
-                            "prop", Latex.prop(line.proposition),
-                            "rule", LatexEquiv.rule(line.rule)));
+                json.name("prop").value(Latex.prop(line.proposition));
+                json.name("rule").value(LatexEquiv.rule(line.rule));
             } else {
-                current.add(Map.of(
-                            "number", line.number.toString(),
-                            "prop", Latex.prop(line.proposition),
-                            "rule", Latex.rule(line.rule)));
+                json.name("number").value(line.number.toString());
+                json.name("prop").value(Latex.prop(line.proposition));
+                json.name("rule").value(Latex.rule(line.rule));
             }
+            json.endObject();
+        }
+        json.endArray();
+        // Not closed, the output belongs to the caller
+        json.flush();
+    }
+
+    /**
+     * Writer appending to an Appendable, which is neither flushed nor closed.
+     */
+    private static final class AppendableWriter extends Writer {
+        private final Appendable out;
+
+        AppendableWriter(Appendable out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            out.append((char) c);
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            out.append(str, off, off + len);
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            out.append(CharBuffer.wrap(cbuf, off, len));
+        }
+
+        @Override
+        public Writer append(CharSequence csq) throws IOException {
+            out.append(csq);
+            return this;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
         }
-        return new Gson().toJson(current);
     }
 }
@@ -0,0 +1,502 @@
+package proofcompiler.generator;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import proofcompiler.ast.Number;
+import proofcompiler.ast.logic.Proposition;
+import proofcompiler.ast.logic.Atomic;
+import proofcompiler.ast.logic.UnaryOp;
+import proofcompiler.ast.logic.BinaryOp;
+import proofcompiler.ast.logic.Meta;
+import proofcompiler.ast.logic.PropositionVisitor;
+import proofcompiler.graph.Step;
+import proofcompiler.graph.Inference;
+import proofcompiler.graph.Rules;
+
+/**
+ * Generator of valid proof source codes, used as a workload for benchmarks
+ * and stress tests.
+ *
+ * Lines are derived by applying the rules registered in `Rules` forward:
+ * inference rules to previously derived lines, and equivalence rules to a
+ * subterm of a previously derived line. Sub-proofs are closed with the
+ * Direct Proof Rule. The same configuration and seed always generate the
+ * same proof.
+ */
+public class ProofGenerator {
+
+    /**
+     * Generator configuration.
+     */
+    public static class Config {
+        /** Number of lines of the proof body. */
+        public int lines = 100;
+        /** Maximum nesting depth of sub-proofs. */
+        public int depth = 2;
+        /** Maximum number of atomic leaves of random formulas. */
+        public int width = 4;
+        /** Maximum operator depth of random formulas. */
+        public int formulaDepth = 3;
+        /** Number of declared atomic propositions. */
+        public int atoms = 4;
+        /** Relative weight of lines derived by inference rules. */
+        public double inference = 0.5;
+        /** Relative weight of lines derived by equivalence rules. */
+        public double equivalence = 0.4;
+        /** Relative weight of sub-proofs. */
+        public double subproof = 0.1;
+        /** Random seed. */
+        public long seed = 0;
+    }
+
+    // Derived formulas may grow up to this factor of the configured width
+    private static final int GROWTH = 4;
+    private static final int ATTEMPTS = 20;
+
+    private final Config config;
+    private final Random random;
+    private final List<Atomic> atoms = new ArrayList<>();
+    private final List<String> inferenceNames = new ArrayList<>();
+    private final List<String> equivalenceNames = new ArrayList<>();
+
+    private StringBuilder sb;
+    private Number number;
+    private int remaining;
+    private List<Proposition> givens;
+
+    /**
+     * A derived line.
+     */
+    private static class Fact {
+        final Number number;
+        final Proposition proposition;
+
+        Fact(Number number, Proposition proposition) {
+            this.number = number;
+            this.proposition = proposition;
+        }
+    }
+
+    public ProofGenerator(Config config) {
+        if (config.lines < 1 || config.atoms < 1 || config.width < 1 || config.formulaDepth < 0)
+            throw new IllegalArgumentException("invalid generator configuration");
+        this.config = config;
+        this.random = new Random(config.seed);
+        for (int i = 0; i < config.atoms; i++)
+            atoms.add(Proposition.atomic("p" + i));
+        // Sort the rules for a deterministic output
+        inferenceNames.addAll(new TreeSet<>(Rules.inferences().keySet()));
+        equivalenceNames.addAll(new TreeSet<>(Rules.equivalences().keySet()));
+    }
+
+    /**
+     * Generates a proof (`proof.`) source code.
+     */
+    public String proof() {
+        sb = new StringBuilder();
+        number = Number.ZERO;
+        remaining = config.lines;
+        declareAtoms();
+        givens = new ArrayList<>();
+        for (int i = 0; i < Math.max(2, config.atoms / 2); i++) {
+            Proposition given = formula(config.width, config.formulaDepth);
+            givens.add(given);
+            sb.append("given ");
+            source(given, sb);
+            sb.append('\n');
+        }
+        sb.append("\nproof.\n");
+        List<Fact> visible = new ArrayList<>();
+        while (remaining > 0)
+            step(0, visible);
+        String result = sb.toString();
+        sb = null;
+        return result;
+    }
+
+    /**
+     * Generates an equivalence chain (`equivalence.`) source code.
+     */
+    public String equivalence() {
+        sb = new StringBuilder();
+        declareAtoms();
+        sb.append("\nequivalence.\n");
+        Proposition current = formula(config.width, config.formulaDepth);
+        source(current, sb);
+        sb.append('\n');
+        for (int i = 1; i < config.lines; i++) {
+            String[] rule = new String[1];
+            Proposition next = rewrite(current, rule, GROWTH * config.width);
+            while (next == null)
+                next = rewrite(current, rule, Integer.MAX_VALUE);
+            sb.append("    = ");
+            source(next, sb);
+            sb.append(" [").append(rule[0]).append("]\n");
+            current = next;
+        }
+        String result = sb.toString();
+        sb = null;
+        return result;
+    }
+
+    private void declareAtoms() {
+        for (Atomic atom : atoms)
+            sb.append("let ").append(atom).append(" be a proposition\n");
+    }
+
+    private void emit(int level, Proposition proposition, String rule, List<Fact> refs) {
+        sb.append("    ".repeat(level)).append(number).append(". ");
+        source(proposition, sb);
+        sb.append(" [").append(rule);
+        if (!refs.isEmpty()) {
+            sb.append(": ").append(refs.stream()
+                    .map(f -> f.number.toString())
+                    .collect(Collectors.joining(", ")));
+        }
+        sb.append("]\n");
+        remaining--;
+    }
+
+    /**
+     * Emits one line, or one sub-proof, in the scope of `visible`.
+     */
+    private void step(int level, List<Fact> visible) {
+        double total = config.inference + config.equivalence + config.subproof;
+        double r = random.nextDouble() * total;
+        if (r < config.subproof && level < config.depth && remaining >= 3) {
+            subproof(level, visible);
+            return;
+        }
+        Fact fact = null;
+        for (int i = 0; fact == null && i < ATTEMPTS; i++) {
+            if (r < config.subproof + config.inference)
+                fact = infer(level, visible);
+            else
+                fact = rewrite(level, visible);
+        }
+        if (fact == null)
+            fact = given(level);
+        visible.add(fact);
+    }
+
+    private Fact given(int level) {
+        number = number.next();
+        Proposition given = givens.get(random.nextInt(givens.size()));
+        emit(level, given, Step.GIVEN, List.of());
+        return new Fact(number, given);
+    }
+
+    private void subproof(int level, List<Fact> visible) {
+        number = number.increaseLevel();
+        Proposition assumption = formula(config.width, config.formulaDepth);
+        emit(level + 1, assumption, Step.ASSUMPTION, List.of());
+        List<Fact> inner = new ArrayList<>(visible);
+        inner.add(new Fact(number, assumption));
+        // Leave one line for the Direct Proof Rule
+        int budget = Math.min(remaining - 1, random.nextInt(Math.max(1, config.lines / 8)));
+        int target = remaining - budget;
+        while (remaining > target)
+            step(level + 1, inner);
+        Proposition conclusion = inner.get(inner.size() - 1).proposition;
+        number = number.decreaseLevel();
+        Proposition implication = Proposition.implies(assumption, conclusion);
+        emit(level, implication, Step.DPR, List.of());
+        visible.add(new Fact(number, implication));
+    }
+
+    /**
+     * Picks a visible line, preferring recent lines so that most lines end
+     * up being used by the conclusion.
+     */
+    private Fact pick(List<Fact> visible) {
+        int n = visible.size();
+        int recent = Math.min(n, 4);
+        if (random.nextInt(4) != 0)
+            return visible.get(n - 1 - random.nextInt(recent));
+        return visible.get(random.nextInt(n));
+    }
+
+    private Fact infer(int level, List<Fact> visible) {
+        String name = inferenceNames.get(random.nextInt(inferenceNames.size()));
+        var rule = Rules.inferences().get(name);
+        List<Proposition> antecedents = new ArrayList<>(rule.antecedents());
+        if (antecedents.size() > visible.size())
+            return null;
+        Map<Meta, Proposition> binding = new HashMap<>();
+        List<Fact> refs = new ArrayList<>();
+        if (!choose(antecedents, visible, binding, refs))
+            return null;
+        List<Proposition> consequents = new ArrayList<>(rule.consequents());
+        Proposition consequent = consequents.get(random.nextInt(consequents.size()));
+        Proposition proposition = instantiate(consequent, binding);
+        if (leaves(proposition) > GROWTH * config.width)
+            return null;
+        number = number.next();
+        emit(level, proposition, name, refs);
+        return new Fact(number, proposition);
+    }
+
+    /**
+     * Assigns distinct visible lines to `antecedents`, extending `binding`.
+     */
+    private boolean choose(List<Proposition> antecedents, List<Fact> visible,
+            Map<Meta, Proposition> binding, List<Fact> refs) {
+        int i = refs.size();
+        if (i == antecedents.size())
+            return true;
+        for (int attempt = 0; attempt < ATTEMPTS; attempt++) {
+            Fact fact = pick(visible);
+            if (refs.contains(fact))
+                continue;
+            var extended = unify(antecedents.get(i), fact.proposition, binding);
+            if (extended == null)
+                continue;
+            refs.add(fact);
+            if (choose(antecedents, visible, extended, refs)) {
+                binding.putAll(extended);
+                return true;
+            }
+            refs.remove(refs.size() - 1);
+        }
+        return false;
+    }
+
+    private Fact rewrite(int level, List<Fact> visible) {
+        if (visible.isEmpty())
+            return null;
+        Fact base = pick(visible);
+        String[] rule = new String[1];
+        Proposition proposition = rewrite(base.proposition, rule, GROWTH * config.width);
+        if (proposition == null)
+            return null;
+        number = number.next();
+        emit(level, proposition, rule[0], List.of(base));
+        return new Fact(number, proposition);
+    }
+
+    /**
+     * Rewrites one subterm of `prop` with a random equivalence rule, storing
+     * the name of the rule in `rule[0]`. Returns null if no rewrite within
+     * `maxLeaves` was found.
+     */
+    private Proposition rewrite(Proposition prop, String[] rule, int maxLeaves) {
+        List<Proposition> subterms = new ArrayList<>();
+        collect(prop, subterms);
+        for (int attempt = 0; attempt < ATTEMPTS; attempt++) {
+            String name = equivalenceNames.get(random.nextInt(equivalenceNames.size()));
+            var constructor = Rules.equivalences().get(name);
+            List<Proposition> equivalences = new ArrayList<>(constructor.equivalences());
+            BinaryOp equ = (BinaryOp) equivalences.get(random.nextInt(equivalences.size()));
+            boolean forward = random.nextBoolean();
+            Proposition from = forward ? equ.lhs : equ.rhs;
+            Proposition to = forward ? equ.rhs : equ.lhs;
+            List<Integer> positions = new ArrayList<>();
+            for (int i = 0; i < subterms.size(); i++)
+                if (unify(from, subterms.get(i), Map.of()) != null)
+                    positions.add(i);
+            if (positions.isEmpty())
+                continue;
+            int position = positions.get(random.nextInt(positions.size()));
+            var binding = new HashMap<>(unify(from, subterms.get(position), Map.of()));
+            Proposition result = replace(prop, position, instantiate(to, binding));
+            if (leaves(result) > maxLeaves)
+                continue;
+            rule[0] = name;
+            return result;
+        }
+        return null;
+    }
+
+    /**
+     * Unifies a rule pattern with `target`, extending `binding`.
+     * Returns the extended binding, or null if they do not unify.
+     */
+    private static Map<Meta, Proposition> unify(Proposition pattern, Proposition target,
+            Map<Meta, Proposition> binding) {
+        var unifier = Inference.unify(pattern, target);
+        if (unifier == null)
+            return null;
+        var result = new HashMap<>(binding);
+        for (var entry : unifier.entrySet()) {
+            Proposition prev = result.putIfAbsent(entry.getKey(), entry.getValue());
+            if (prev != null && !prev.equals(entry.getValue()))
+                return null;
+        }
+        return result;
+    }
+
+    /**
+     * Substitutes the meta variables of `pattern`, binding unbound meta
+     * variables to random formulas.
+     */
+    private Proposition instantiate(Proposition pattern, Map<Meta, Proposition> binding) {
+        class Instantiate extends PropositionVisitor<Proposition> {
+            @Override public Proposition visitTrue()  { return Proposition.TRUE; }
+            @Override public Proposition visitFalse() { return Proposition.FALSE; }
+            @Override public Proposition visit(Atomic atomic) { return atomic; }
+
+            @Override
+            public Proposition visit(Meta meta) {
+                return binding.computeIfAbsent(meta, m -> formula(Math.min(2, config.width), 1));
+            }
+
+            @Override
+            public Proposition visit(UnaryOp unary) {
+                return Proposition.unary(unary.type, visit(unary.arg));
+            }
+
+            @Override
+            public Proposition visit(BinaryOp binary) {
+                return Proposition.binary(binary.type, visit(binary.lhs), visit(binary.rhs));
+            }
+        }
+        return new Instantiate().visit(pattern);
+    }
+
+    /**
+     * Generates a random formula with at most `width` leaves and operator
+     * depth `depth`.
+     */
+    Proposition formula(int width, int depth) {
+        if (depth == 0 || width == 1 || random.nextInt(4) == 0) {
+            if (depth > 0 && random.nextInt(3) == 0)
+                return Proposition.not(formula(width, depth - 1));
+            return atoms.get(random.nextInt(atoms.size()));
+        }
+        int left = 1 + random.nextInt(width - 1);
+        var types = BinaryOp.Type.values();
+        return Proposition.binary(
+                types[random.nextInt(types.length)],
+                formula(left, depth - 1),
+                formula(width - left, depth - 1));
+    }
+
+    private static void collect(Proposition prop, List<Proposition> subterms) {
+        subterms.add(prop);
+        if (prop instanceof UnaryOp) {
+            collect(((UnaryOp) prop).arg, subterms);
+        } else if (prop instanceof BinaryOp) {
+            collect(((BinaryOp) prop).lhs, subterms);
+            collect(((BinaryOp) prop).rhs, subterms);
+        }
+    }
+
+    /**
+     * Replaces the subterm at pre-order `position` of `prop` by `replacement`.
+     */
+    private static Proposition replace(Proposition prop, int position, Proposition replacement) {
+        return replace(prop, new int[]{position}, replacement);
+    }
+
+    private static Proposition replace(Proposition prop, int[] position, Proposition replacement) {
+        if (position[0]-- == 0)
+            return replacement;
+        if (prop instanceof UnaryOp) {
+            UnaryOp unary = (UnaryOp) prop;
+            return Proposition.unary(unary.type, replace(unary.arg, position, replacement));
+        }
+        if (prop instanceof BinaryOp) {
+            BinaryOp binary = (BinaryOp) prop;
+            Proposition lhs = replace(binary.lhs, position, replacement);
+            Proposition rhs = position[0] < 0 ? binary.rhs : replace(binary.rhs, position, replacement);
+            return Proposition.binary(binary.type, lhs, rhs);
+        }
+        return prop;
+    }
+
+    /**
+     * Binding strength of an operator in the grammar; implications and
+     * biconditionals do not associate.
+     */
+    private static int precedence(BinaryOp.Type type) {
+        switch (type) {
+            case AND: return 1;
+            case XOR: return 2;
+            case OR:  return 3;
+            default:  return 4;
+        }
+    }
+
+    /**
+     * Writes `prop` in source syntax. Unlike `toString`, the result is
+     * parenthesized so that it always parses back to `prop`.
+     */
+    static void source(Proposition prop, StringBuilder sb) {
+        if (prop instanceof UnaryOp) {
+            UnaryOp unary = (UnaryOp) prop;
+            sb.append(unary.type);
+            operand(unary.arg, 0, sb);
+        } else if (prop instanceof BinaryOp) {
+            BinaryOp binary = (BinaryOp) prop;
+            int precedence = precedence(binary.type);
+            // Chains of and, xor and or fold to the left
+            operand(binary.lhs, precedence == 4 ? 3 : precedence, sb);
+            sb.append(' ').append(binary.type).append(' ');
+            operand(binary.rhs, precedence == 4 ? 3 : precedence - 1, sb);
+        } else {
+            sb.append(prop);
+        }
+    }
+
+    /**
+     * Writes `prop`, parenthesized if it binds weaker than `precedence`.
+     */
+    private static void operand(Proposition prop, int precedence, StringBuilder sb) {
+        boolean paren = prop instanceof BinaryOp
+                && precedence(((BinaryOp) prop).type) > precedence;
+        if (paren)
+            sb.append('(');
+        source(prop, sb);
+        if (paren)
+            sb.append(')');
+    }
+
+    private static int leaves(Proposition prop) {
+        if (prop instanceof UnaryOp)
+            return leaves(((UnaryOp) prop).arg);
+        if (prop instanceof BinaryOp)
+            return leaves(((BinaryOp) prop).lhs) + leaves(((BinaryOp) prop).rhs);
+        return 1;
+    }
+
+    /**
+     * Writes a generated proof to stdout.
+     *
+     * Options: `--lines N`, `--depth N`, `--width N`, `--formula-depth N`,
+     * `--atoms N`, `--inference W`, `--equivalence W`, `--subproof W`,
+     * `--seed N`, and `--chain` to generate an equivalence chain.
+     */
+    public static void main(String[] args) {
+        Config config = new Config();
+        boolean chain = false;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--chain":         chain = true; break;
+                    case "--lines":         config.lines = Integer.parseInt(args[++i]); break;
+                    case "--depth":         config.depth = Integer.parseInt(args[++i]); break;
+                    case "--width":         config.width = Integer.parseInt(args[++i]); break;
+                    case "--formula-depth": config.formulaDepth = Integer.parseInt(args[++i]); break;
+                    case "--atoms":         config.atoms = Integer.parseInt(args[++i]); break;
+                    case "--inference":     config.inference = Double.parseDouble(args[++i]); break;
+                    case "--equivalence":   config.equivalence = Double.parseDouble(args[++i]); break;
+                    case "--subproof":      config.subproof = Double.parseDouble(args[++i]); break;
+                    case "--seed":          config.seed = Long.parseLong(args[++i]); break;
+                    default:
+                        throw new IllegalArgumentException(String.format("unknown option '%s'", args[i]));
+                }
+            }
+            var generator = new ProofGenerator(config);
+            System.out.print(chain ? generator.equivalence() : generator.proof());
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
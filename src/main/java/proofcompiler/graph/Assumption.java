@@ -5,9 +5,9 @@ import proofcompiler.ast.Number;
 import proofcompiler.ast.logic.Proposition;
 
 public class Assumption extends Step {
-    public Assumption(Number number, Proposition proposition, Collection<Step> dependencies)
+    public Assumption(int index, Number number, Proposition proposition, Collection<Step> dependencies)
             throws Step.RuleCheckException {
-        super(number, proposition, dependencies, 0);
+        super(index, number, proposition, dependencies, 0);
     }
 
     @Override
@@ -0,0 +1,330 @@
+package proofcompiler.graph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import proofcompiler.ast.Line;
+import proofcompiler.ast.Number;
+import proofcompiler.ast.Rule;
+import proofcompiler.ast.logic.BinaryOp;
+import proofcompiler.ast.logic.Meta;
+import proofcompiler.ast.logic.Proposition;
+import proofcompiler.ast.logic.UnaryOp;
+import proofcompiler.semantics.Semantics;
+
+/**
+ * Search for a chain of equivalence rules rewriting a proposition into
+ * another, to write model answers and hints of equivalence proofs.
+ *
+ * The search is bidirectional and best-first: it grows a tree of
+ * rewritings from each end, expanding first the propositions with the
+ * fewest rewritings behind them plus the difference between their size
+ * and the size of the other end, until the two trees meet. The rules are
+ * equivalences, so the rewritings from the target read backwards by the
+ * same rules. A rewriting replaces one subterm by the instance of the
+ * other side of a rule. Sides of a rule with meta variables the matched
+ * side lacks are never produced, and rewritings may not grow over a
+ * factor of the larger end.
+ *
+ * Each round takes a batch of the best propositions of the smaller tree
+ * and computes their rewritings concurrently, then records them in order,
+ * so that the chain found does not depend on the pool. The search gives up
+ * after a number of distinct propositions, which bounds its memory, or
+ * after a deadline.
+ */
+public class ChainSearch {
+
+    /**
+     * Search configuration.
+     */
+    public static class Config {
+        /** Maximum number of distinct propositions visited from both ends. */
+        public int maxStates = 1 << 20;
+        /** Time limit of a search, in milliseconds. */
+        public long timeout = 10_000;
+        /** Number of propositions expanded per round. */
+        public int batch = 64;
+        /** Rewritings may grow up to this factor of the size of the larger end. */
+        public int growth = 2;
+    }
+
+    /**
+     * One side `from` of an equivalence rule, rewritten to the other `to`.
+     * Meta variables are numbered per equivalence.
+     */
+    private static final class Orientation {
+        final String rule;
+        final Proposition from;
+        final Proposition to;
+
+        Orientation(String rule, Proposition from, Proposition to) {
+            this.rule = rule;
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    /**
+     * The equivalence rules, by the skeletons of the sides they rewrite.
+     */
+    private static final class Index {
+        static final DiscriminationTree<Orientation> ORIENTATIONS = new DiscriminationTree<>();
+
+        static {
+            // Rules with several names are used under the first one
+            Map<Step.StepConstructor, String> names = new IdentityHashMap<>();
+            for (var rule : Rules.equivalences().entrySet())
+                names.merge(rule.getValue(), rule.getKey(), (a, b) -> a.compareTo(b) <= 0 ? a : b);
+            for (var rule : names.entrySet()) {
+                var constructor = (Equivalence.EquivalenceConstructor) rule.getKey();
+                for (Proposition e : constructor.equivalences()) {
+                    BinaryOp equ = (BinaryOp) new Unifier.Numbering().visit(e);
+                    add(rule.getValue(), equ.lhs, equ.rhs);
+                    add(rule.getValue(), equ.rhs, equ.lhs);
+                }
+            }
+        }
+
+        private static void add(String rule, Proposition from, Proposition to) {
+            if (slots(from).containsAll(slots(to)))
+                ORIENTATIONS.insert(new Orientation(rule, from, to), from);
+        }
+
+        private static List<Integer> slots(Proposition pattern) {
+            if (pattern instanceof Meta)
+                return List.of(((Meta) pattern).slot);
+            List<Integer> slots = new ArrayList<>();
+            if (pattern instanceof UnaryOp) {
+                slots.addAll(slots(((UnaryOp) pattern).arg));
+            } else if (pattern instanceof BinaryOp) {
+                slots.addAll(slots(((BinaryOp) pattern).lhs));
+                slots.addAll(slots(((BinaryOp) pattern).rhs));
+            }
+            return slots;
+        }
+    }
+
+    /**
+     * A proposition reached from one end, by `rule` from its parent.
+     */
+    private static final class Node {
+        final Proposition proposition;
+        final Node parent;
+        final String rule;
+        final int depth;
+        final int priority;
+        final long order;
+
+        Node(Proposition proposition, Node parent, String rule, int goal, long order) {
+            this.proposition = proposition;
+            this.parent = parent;
+            this.rule = rule;
+            this.depth = parent == null ? 0 : parent.depth + 1;
+            this.priority = depth + Math.abs(size(proposition) - goal);
+            this.order = order;
+        }
+    }
+
+    /**
+     * The rewritings from one end.
+     */
+    private static final class Tree {
+        final Map<Proposition, Node> visited = new HashMap<>();
+        final PriorityQueue<Node> frontier = new PriorityQueue<>((a, b) ->
+                a.priority != b.priority ? Integer.compare(a.priority, b.priority) : Long.compare(a.order, b.order));
+        final int goal;
+        final Node root;
+
+        Tree(Proposition end, int goal) {
+            this.goal = goal;
+            this.root = add(end, null, null);
+        }
+
+        Node add(Proposition proposition, Node parent, String rule) {
+            Node node = new Node(proposition, parent, rule, goal, visited.size());
+            visited.put(proposition, node);
+            frontier.add(node);
+            return node;
+        }
+
+        List<Node> poll(int count) {
+            List<Node> batch = new ArrayList<>(count);
+            while (batch.size() < count && !frontier.isEmpty())
+                batch.add(frontier.poll());
+            return batch;
+        }
+    }
+
+    /**
+     * A rewriting of a proposition into `result` by `rule`.
+     */
+    private static final class Move {
+        final Proposition result;
+        final String rule;
+
+        Move(Proposition result, String rule) {
+            this.result = result;
+            this.rule = rule;
+        }
+    }
+
+    private final Config config;
+    private int visited = 0;
+
+    public ChainSearch(Config config) {
+        if (config.maxStates < 2 || config.timeout < 0 || config.batch < 1 || config.growth < 1)
+            throw new IllegalArgumentException("invalid search configuration");
+        this.config = config;
+    }
+
+    /**
+     * Searches for a chain from `start` to `target`, expanding the
+     * propositions concurrently on `pool` if it is not null.
+     *
+     * Returns the lines of the chain in the form of a parsed `equivalence.`
+     * proof, or null if the propositions are not equivalent or no chain
+     * was found within the bounds.
+     */
+    public List<Line> search(Proposition start, Proposition target, ForkJoinPool pool) {
+        long deadline = System.nanoTime() + config.timeout * 1_000_000;
+        visited = 0;
+        if (Semantics.equivalent(start, target) == Semantics.Verdict.NO)
+            return null;
+        int maxSize = config.growth * Math.max(size(start), size(target));
+        Tree forward = new Tree(start, size(target));
+        if (start.equals(target))
+            return lines(forward.root, forward.root);
+        Tree backward = new Tree(target, size(start));
+        // Once a tree is exhausted, all the propositions it can reach are known
+        while (!forward.frontier.isEmpty() && !backward.frontier.isEmpty()) {
+            if (System.nanoTime() > deadline)
+                break;
+            boolean forwards = forward.visited.size() <= backward.visited.size();
+            Tree tree = forwards ? forward : backward;
+            Tree other = forwards ? backward : forward;
+            List<Node> batch = tree.poll(config.batch);
+            List<List<Move>> moves = expand(batch, pool, maxSize);
+            for (int i = 0; i < batch.size(); i++) {
+                for (Move move : moves.get(i)) {
+                    if (tree.visited.containsKey(move.result))
+                        continue;
+                    Node node = tree.add(move.result, batch.get(i), move.rule);
+                    visited = forward.visited.size() + backward.visited.size();
+                    Node met = other.visited.get(move.result);
+                    if (met != null)
+                        return forwards ? lines(node, met) : lines(met, node);
+                    if (visited >= config.maxStates)
+                        return null;
+                }
+            }
+        }
+        visited = forward.visited.size() + backward.visited.size();
+        return null;
+    }
+
+    /**
+     * Number of distinct propositions visited by the last search.
+     */
+    public int visited() {
+        return visited;
+    }
+
+    private static List<List<Move>> expand(List<Node> batch, ForkJoinPool pool, int maxSize) {
+        List<List<Move>> moves = new ArrayList<>(batch.size());
+        if (pool == null || batch.size() == 1) {
+            for (Node node : batch)
+                moves.add(rewritings(node.proposition, maxSize));
+            return moves;
+        }
+        List<ForkJoinTask<List<Move>>> tasks = new ArrayList<>(batch.size());
+        for (Node node : batch)
+            tasks.add(pool.submit(() -> rewritings(node.proposition, maxSize)));
+        for (var task : tasks)
+            moves.add(task.join());
+        return moves;
+    }
+
+    /**
+     * The rewritings of `prop` by one rule applied to one of its subterms,
+     * with at most `maxSize` operators and leaves.
+     */
+    private static List<Move> rewritings(Proposition prop, int maxSize) {
+        List<Move> moves = rewritings(prop);
+        moves.removeIf(move -> size(move.result) > maxSize);
+        return moves;
+    }
+
+    private static List<Move> rewritings(Proposition prop) {
+        List<Move> moves = new ArrayList<>();
+        var unifier = Unifier.acquire();
+        try {
+            for (Orientation orientation : Index.ORIENTATIONS.candidates(prop)) {
+                if (unifier.unify(orientation.from, prop)) {
+                    Proposition result = unifier.instantiate(orientation.to);
+                    if (!result.equals(prop))
+                        moves.add(new Move(result, orientation.rule));
+                }
+                unifier.undo(0);
+            }
+        } finally {
+            unifier.release();
+        }
+        if (prop instanceof UnaryOp) {
+            UnaryOp unary = (UnaryOp) prop;
+            for (Move move : rewritings(unary.arg))
+                moves.add(new Move(Proposition.unary(unary.type, move.result), move.rule));
+        } else if (prop instanceof BinaryOp) {
+            BinaryOp binary = (BinaryOp) prop;
+            for (Move move : rewritings(binary.lhs))
+                moves.add(new Move(Proposition.binary(binary.type, move.result, binary.rhs), move.rule));
+            for (Move move : rewritings(binary.rhs))
+                moves.add(new Move(Proposition.binary(binary.type, binary.lhs, move.result), move.rule));
+        }
+        return moves;
+    }
+
+    /**
+     * Joins the path from the start to `forward` and the path from
+     * `backward`, at the same proposition, to the target.
+     */
+    private static List<Line> lines(Node forward, Node backward) {
+        List<Proposition> propositions = new ArrayList<>();
+        List<String> rules = new ArrayList<>();
+        for (Node node = forward; node != null; node = node.parent) {
+            propositions.add(node.proposition);
+            rules.add(node.rule);
+        }
+        Collections.reverse(propositions);
+        Collections.reverse(rules);
+        for (Node node = backward; node.parent != null; node = node.parent) {
+            propositions.add(node.parent.proposition);
+            rules.add(node.rule);
+        }
+        List<Line> lines = new ArrayList<>(propositions.size());
+        lines.add(new Line(new Number(List.of(1)), propositions.get(0), new Rule(Step.GIVEN, List.of())));
+        for (int i = 1; i < propositions.size(); i++)
+            lines.add(new Line(
+                        new Number(List.of(i + 1)),
+                        propositions.get(i),
+                        new Rule(rules.get(i), List.of(new Number(List.of(i))))));
+        return Collections.unmodifiableList(lines);
+    }
+
+    /**
+     * Number of operators and leaves of `prop`.
+     */
+    private static int size(Proposition prop) {
+        if (prop instanceof UnaryOp)
+            return 1 + size(((UnaryOp) prop).arg);
+        if (prop instanceof BinaryOp)
+            return 1 + size(((BinaryOp) prop).lhs) + size(((BinaryOp) prop).rhs);
+        return 1;
+    }
+}
@@ -18,16 +18,20 @@ public class DPR extends Assumption {
         }
     }
 
-    public DPR(Number number, Proposition proposition, Collection<Step> dependencies,
+    public DPR(int index, Number number, Proposition proposition, Collection<Step> dependencies,
             Step assumption, Step conclusion)
             throws Step.RuleCheckException {
-        super(number, proposition, dependencies);
-        if (!proposition.equals(Proposition.implies(assumption.proposition, conclusion.proposition)))
-            throw new RuleCheckException();
+        super(index, number, proposition, dependencies);
         this.assumption = assumption;
         this.conclusion = conclusion;
     }
 
+    @Override
+    public void check() throws Step.RuleCheckException {
+        if (!proposition.equals(Proposition.implies(assumption.proposition, conclusion.proposition)))
+            throw new RuleCheckException();
+    }
+
     @Override
     public String ruleName() {
         return Step.DPR;
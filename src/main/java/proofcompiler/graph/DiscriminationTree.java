@@ -0,0 +1,109 @@
+package proofcompiler.graph;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import proofcompiler.ast.logic.Proposition;
+import proofcompiler.ast.logic.Atomic;
+import proofcompiler.ast.logic.UnaryOp;
+import proofcompiler.ast.logic.BinaryOp;
+import proofcompiler.ast.logic.Meta;
+
+/**
+ * An index of rule patterns keyed by their operator skeleton.
+ *
+ * A pattern is a sequence of propositions, stored as the pre-order sequence
+ * of its symbols, where meta variables are wildcards. Looking up a sequence
+ * of propositions returns the values of all patterns whose skeleton is
+ * compatible with it. Consistency of meta variable bindings is not checked,
+ * so the candidates still have to be unified.
+ */
+class DiscriminationTree<T> {
+    private static final Object WILDCARD = new Object();
+
+    private final Node<T> root = new Node<>();
+
+    private static class Node<T> {
+        final Map<Object, Node<T>> children = new HashMap<>();
+        final List<T> values = new ArrayList<>(1);
+
+        Node<T> child(Object key) {
+            return children.computeIfAbsent(key, k -> new Node<>());
+        }
+    }
+
+    /**
+     * Immutable list of subterms still to be visited.
+     */
+    private static class Pending {
+        final Proposition head;
+        final Pending tail;
+
+        Pending(Proposition head, Pending tail) {
+            this.head = head;
+            this.tail = tail;
+        }
+    }
+
+    private static Object key(Proposition prop) {
+        if (prop instanceof Meta)
+            return WILDCARD;
+        if (prop instanceof UnaryOp)
+            return ((UnaryOp) prop).type;
+        if (prop instanceof BinaryOp)
+            return ((BinaryOp) prop).type;
+        // Literals and atomic propositions are their own keys
+        return prop;
+    }
+
+    private static Pending push(Proposition prop, Pending pending) {
+        if (prop instanceof UnaryOp)
+            return new Pending(((UnaryOp) prop).arg, pending);
+        if (prop instanceof BinaryOp)
+            return new Pending(((BinaryOp) prop).lhs, new Pending(((BinaryOp) prop).rhs, pending));
+        return pending;
+    }
+
+    private static Pending sequence(Proposition[] props) {
+        Pending pending = null;
+        for (int i = props.length - 1; i >= 0; i--)
+            pending = new Pending(props[i], pending);
+        return pending;
+    }
+
+    /**
+     * Adds `value` under the pattern sequence `pattern`.
+     */
+    void insert(T value, Proposition... pattern) {
+        Node<T> node = root;
+        for (Pending p = sequence(pattern); p != null; ) {
+            Proposition prop = p.head;
+            node = node.child(key(prop));
+            p = prop instanceof Meta ? p.tail : push(prop, p.tail);
+        }
+        node.values.add(value);
+    }
+
+    /**
+     * Returns the values of all patterns that may match `terms`.
+     */
+    List<T> candidates(Proposition... terms) {
+        List<T> result = new ArrayList<>();
+        collect(root, sequence(terms), result);
+        return result;
+    }
+
+    private void collect(Node<T> node, Pending pending, List<T> result) {
+        if (pending == null) {
+            result.addAll(node.values);
+            return;
+        }
+        Node<T> wildcard = node.children.get(WILDCARD);
+        if (wildcard != null)
+            collect(wildcard, pending.tail, result);
+        Node<T> exact = node.children.get(key(pending.head));
+        if (exact != null)
+            collect(exact, push(pending.head, pending.tail), result);
+    }
+}
@@ -1,33 +1,54 @@
 package proofcompiler.graph;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.HashMap;
+import java.util.Deque;
+import java.util.ArrayDeque;
 
 import proofcompiler.ast.Number;
 import proofcompiler.ast.logic.Proposition;
-import proofcompiler.ast.logic.Atomic;
 import proofcompiler.ast.logic.UnaryOp;
 import proofcompiler.ast.logic.BinaryOp;
-import proofcompiler.ast.logic.PropositionVisitor;
+import proofcompiler.semantics.Semantics;
 
 public class Equivalence extends Step {
     private final String ruleName;
     private final Collection<Step> dependencies;
+    private final DiscriminationTree<BinaryOp> equivalences;
 
     public static Proposition equ(Proposition lhs, Proposition rhs) {
         return Proposition.biconditional(lhs, rhs);
     }
 
     public static class EquivalenceConstructor implements Step.StepConstructor {
-        private final Collection<Proposition> equivalences;
+        private final Collection<Proposition> patterns;
+        private final DiscriminationTree<BinaryOp> equivalences;
 
         EquivalenceConstructor(Collection<Proposition> equivalences) {
-            this.equivalences = equivalences;
+            this.patterns = List.copyOf(equivalences);
+            this.equivalences = index(equivalences);
+        }
+
+        /**
+         * The equivalences `l ↔ r` of the rule, as declared.
+         */
+        public Collection<Proposition> equivalences() {
+            return patterns;
+        }
+
+        /**
+         * Whether `proposition` is a rewriting of `premise` by this rule.
+         */
+        boolean matches(Proposition premise, Proposition proposition) {
+            return match(equivalences, premise, proposition);
         }
 
         @Override
-        public Equivalence apply(Number number, Proposition proposition, String ruleName, Collection<Step> dependencies)
+        public Equivalence apply(int index, Number number, Proposition proposition, String ruleName, Collection<Step> dependencies)
             throws Step.RuleCheckException {
-            return new Equivalence(number, proposition, ruleName, dependencies, equivalences);
+            return new Equivalence(index, number, proposition, ruleName, dependencies, equivalences);
         }
     }
 
@@ -37,22 +58,47 @@ public class Equivalence extends Step {
 
     public class RuleCheckException extends Step.RuleCheckException {
         public static final long serialVersionUID = 0;
+        private List<String> suggestions = null;
+
+        /**
+         * Names of the rules by which the line would have been valid,
+         * found on first use.
+         */
+        public synchronized List<String> suggestions() {
+            if (suggestions == null)
+                suggestions = Suggestions.find(List.of(premise()), proposition, null);
+            return suggestions;
+        }
 
         @Override
         public String getMessage() {
-            return String.format("%s: equivalence rule does not match", super.getMessage());
+            return String.format("%s: equivalence rule does not match%s",
+                    super.getMessage(), Suggestions.describe(suggestions()));
         }
     }
 
     private Equivalence(
-            Number number, Proposition proposition, String ruleName, Collection<Step> dependencies,
-            Collection<Proposition> equivalences)
+            int index, Number number, Proposition proposition, String ruleName, Collection<Step> dependencies,
+            DiscriminationTree<BinaryOp> equivalences)
             throws Step.RuleCheckException {
-        super(number, proposition, dependencies, 1);
-        if (!match(equivalences, dependencies.stream().findAny().get().proposition, proposition))
-            throw new RuleCheckException();
+        super(index, number, proposition, dependencies, 1);
         this.ruleName = ruleName;
         this.dependencies = dependencies;
+        this.equivalences = equivalences;
+    }
+
+    @Override
+    public void check() throws Step.RuleCheckException {
+        Proposition premise = premise();
+        // The rules are equivalences, so they only match equivalent lines
+        if (Semantics.equivalent(premise, proposition) == Semantics.Verdict.NO)
+            throw new RuleCheckException();
+        if (!match(equivalences, premise, proposition))
+            throw new RuleCheckException();
+    }
+
+    private Proposition premise() {
+        return dependencies.stream().findAny().get().proposition;
     }
 
     @Override
@@ -65,92 +111,172 @@ public class Equivalence extends Step {
         return dependencies;
     }
 
+    /**
+     * Compiles equivalences `l ↔ r` into an index of both orientations
+     * `(l, r)` and `(r, l)`, keyed by the skeletons of the two sides.
+     * Meta variables are numbered per equivalence.
+     */
+    private static DiscriminationTree<BinaryOp> index(Collection<Proposition> equivalences) {
+        var index = new DiscriminationTree<BinaryOp>();
+        for (Proposition e : equivalences) {
+            BinaryOp equ = (BinaryOp) new Unifier.Numbering().visit(e);
+            index.insert(equ, equ.lhs, equ.rhs);
+            index.insert(Proposition.biconditional(equ.rhs, equ.lhs), equ.rhs, equ.lhs);
+        }
+        return index;
+    }
+
     public static boolean match(
             Collection<Proposition> equivalences,
             Proposition lhs,
             Proposition rhs) {
-        return new MatcherCreator(equivalences).visit(lhs).visit(rhs);
-    }
-
-    private static abstract class Matcher extends PropositionVisitor<Boolean> {
-        protected final Collection<Proposition> equivalences;
-        Matcher(Collection<Proposition> equivalences) { this.equivalences = equivalences; }
-        protected abstract Proposition lhs();
-        @Override public Boolean visitTrue()         { return unify(Proposition.TRUE); }
-        @Override public Boolean visitFalse()        { return unify(Proposition.FALSE); }
-        @Override public Boolean visit(Atomic   rhs) { return unify(rhs); }
-        @Override public Boolean visit(UnaryOp  rhs) { return unify(rhs); }
-        @Override public Boolean visit(BinaryOp rhs) { return unify(rhs); }
-
-        protected boolean unify(Proposition rhs) {
-            return equivalences.stream()
-                .filter(e ->
-                        Inference.unify(e, equ(lhs(), rhs)) != null ||
-                        Inference.unify(e, equ(rhs, lhs())) != null)
-                .findAny()
-                .isPresent();
-        }
+        return match(index(equivalences), lhs, rhs);
     }
 
-    private static class TrueMatcher extends Matcher {
-        TrueMatcher(Collection<Proposition> equivalences) { super(equivalences); }
-        @Override protected Proposition lhs() { return Proposition.TRUE; }
-        @Override public Boolean visitTrue() { return true; }
+    static boolean match(
+            DiscriminationTree<BinaryOp> equivalences,
+            Proposition lhs,
+            Proposition rhs) {
+        return new Context(equivalences).match(lhs, rhs);
     }
 
-    private static class FalseMatcher extends Matcher {
-        FalseMatcher(Collection<Proposition> equivalences) { super(equivalences); }
-        @Override protected Proposition lhs() { return Proposition.FALSE; }
-        @Override public Boolean visitFalse() { return true; }
-    }
+    /**
+     * State of matching one line.
+     *
+     * `lhs` matches `rhs` if they have the same operator and their operands
+     * match pairwise, or if an equivalence unifies with `(lhs, rhs)`.
+     * Every pair of subterms is decided at most once. Propositions are
+     * hash-consed, so pairs are keyed by identity; structurally equal
+     * subterms that are not shared merely miss the memo.
+     *
+     * Pairs of operands are matched with an explicit stack instead of
+     * recursion, so arbitrarily deep propositions can be matched.
+     */
+    private static class Context {
+        private final DiscriminationTree<BinaryOp> equivalences;
+        private final Map<Pair, Boolean> memo = new HashMap<>();
 
-    private static class AtomicMatcher extends Matcher {
-        private final Atomic lhs;
-        AtomicMatcher(Collection<Proposition> equivalences, Atomic lhs) {
-            super(equivalences);
-            this.lhs = lhs;
+        Context(DiscriminationTree<BinaryOp> equivalences) { this.equivalences = equivalences; }
+
+        boolean match(Proposition lhs, Proposition rhs) {
+            Deque<Frame> stack = new ArrayDeque<>();
+            Boolean result = start(lhs, rhs, stack);
+            while (true) {
+                if (result == null) {
+                    // Match the next pair of operands of the top frame
+                    Frame frame = stack.peek();
+                    int i = frame.next++;
+                    result = start(operand(frame.lhs, i), operand(frame.rhs, i), stack);
+                    continue;
+                }
+                if (stack.isEmpty())
+                    return result;
+                Frame frame = stack.peek();
+                if (result && frame.next < frame.arity) {
+                    result = null;
+                    continue;
+                }
+                stack.pop();
+                if (!result)
+                    result = unify(frame.lhs, frame.rhs);
+                memo.put(new Pair(frame.lhs, frame.rhs), result);
+            }
+        }
+
+        /**
+         * Decides `(lhs, rhs)` if its operands need not be matched.
+         * Otherwise pushes a frame for it and returns null.
+         */
+        private Boolean start(Proposition lhs, Proposition rhs, Deque<Frame> stack) {
+            if (lhs == rhs)
+                return true;
+            Pair key = new Pair(lhs, rhs);
+            Boolean result = memo.get(key);
+            if (result != null)
+                return result;
+            int arity = arity(lhs, rhs);
+            if (arity > 0) {
+                stack.push(new Frame(lhs, rhs, arity));
+                return null;
+            }
+            result = lhs.equals(rhs) || unify(lhs, rhs);
+            memo.put(key, result);
+            return result;
         }
-        @Override protected Proposition lhs() { return lhs; }
-        @Override public Boolean visit(Atomic rhs) {
-            return lhs.equals(rhs) || unify(rhs);
+
+        private boolean unify(Proposition lhs, Proposition rhs) {
+            var unifier = Unifier.acquire();
+            try {
+                for (BinaryOp e : equivalences.candidates(lhs, rhs)) {
+                    if (unifier.unify(e.lhs, lhs) && unifier.unify(e.rhs, rhs))
+                        return true;
+                    unifier.undo(0);
+                }
+                return false;
+            } finally {
+                unifier.release();
+            }
         }
     }
 
-    private static class UnaryMatcher extends Matcher {
-        private final UnaryOp lhs;
-        public UnaryMatcher(Collection<Proposition> equivalences, UnaryOp lhs) {
-            super(equivalences);
+    /**
+     * A pair of propositions with the same operator, whose operands are
+     * being matched.
+     */
+    private static class Frame {
+        final Proposition lhs;
+        final Proposition rhs;
+        final int arity;
+        int next = 0;
+
+        Frame(Proposition lhs, Proposition rhs, int arity) {
             this.lhs = lhs;
-        }
-        @Override protected Proposition lhs() { return lhs; }
-        @Override public Boolean visit(UnaryOp rhs) {
-            return (lhs.type == rhs.type && match(equivalences, lhs.arg, rhs.arg))
-                || unify(rhs);
+            this.rhs = rhs;
+            this.arity = arity;
         }
     }
 
-    private static class BinaryMatcher extends Matcher {
-        private final BinaryOp lhs;
-        public BinaryMatcher(Collection<Proposition> equivalences, BinaryOp lhs) {
-            super(equivalences);
+    /**
+     * Returns the number of operands of `lhs` and `rhs` if they have the
+     * same operator, or 0 otherwise.
+     */
+    private static int arity(Proposition lhs, Proposition rhs) {
+        if (lhs instanceof UnaryOp && rhs instanceof UnaryOp
+                && ((UnaryOp) lhs).type == ((UnaryOp) rhs).type)
+            return 1;
+        if (lhs instanceof BinaryOp && rhs instanceof BinaryOp
+                && ((BinaryOp) lhs).type == ((BinaryOp) rhs).type)
+            return 2;
+        return 0;
+    }
+
+    private static Proposition operand(Proposition prop, int i) {
+        if (prop instanceof UnaryOp)
+            return ((UnaryOp) prop).arg;
+        BinaryOp binary = (BinaryOp) prop;
+        return i == 0 ? binary.lhs : binary.rhs;
+    }
+
+    private static class Pair {
+        private final Proposition lhs;
+        private final Proposition rhs;
+
+        Pair(Proposition lhs, Proposition rhs) {
             this.lhs = lhs;
+            this.rhs = rhs;
         }
-        @Override protected Proposition lhs() { return lhs; }
-        @Override public Boolean visit(BinaryOp rhs) {
-            return (lhs.type == rhs.type &&
-                    match(equivalences, lhs.lhs, rhs.lhs) &&
-                    match(equivalences, lhs.rhs, rhs.rhs))
-                || unify(rhs);
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Pair))
+                return false;
+            Pair that = (Pair) o;
+            return this.lhs == that.lhs && this.rhs == that.rhs;
         }
-    }
 
-    private static class MatcherCreator extends PropositionVisitor<Matcher> {
-        private final Collection<Proposition> equivalences;
-        MatcherCreator(Collection<Proposition> equivalences) { this.equivalences = equivalences; }
-        @Override public Matcher visitTrue()         { return new   TrueMatcher(equivalences); }
-        @Override public Matcher visitFalse()        { return new  FalseMatcher(equivalences); }
-        @Override public Matcher visit(Atomic   lhs) { return new AtomicMatcher(equivalences, lhs); }
-        @Override public Matcher visit(UnaryOp  lhs) { return new  UnaryMatcher(equivalences, lhs); }
-        @Override public Matcher visit(BinaryOp lhs) { return new BinaryMatcher(equivalences, lhs); }
+        @Override
+        public int hashCode() {
+            return 31 * lhs.hashCode() + rhs.hashCode();
+        }
     }
 }
@@ -6,6 +6,7 @@ import proofcompiler.ast.Number;
 import proofcompiler.ast.logic.Proposition;
 
 public class Given extends Assumption {
+    private final Declarations decls;
 
     public class RuleCheckException extends Step.RuleCheckException {
         public static final long serialVersionUID = 0;
@@ -16,9 +17,14 @@ public class Given extends Assumption {
         }
     }
 
-    public Given(Number number, Proposition proposition, Collection<Step> dependencies, Declarations decls)
+    public Given(int index, Number number, Proposition proposition, Collection<Step> dependencies, Declarations decls)
             throws Step.RuleCheckException {
-        super(number, proposition, dependencies);
+        super(index, number, proposition, dependencies);
+        this.decls = decls;
+    }
+
+    @Override
+    public void check() throws Step.RuleCheckException {
         if (!decls.givens().contains(proposition))
             throw new RuleCheckException();
     }
@@ -1,39 +1,70 @@
 package proofcompiler.graph;
 
-import java.util.Collections;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
-import java.util.HashMap;
 import java.util.stream.Collectors;
-import java.util.function.Supplier;
 
-import static proofcompiler.Util.foldl;
 import proofcompiler.ast.Number;
 import proofcompiler.ast.logic.Proposition;
-import proofcompiler.ast.logic.Atomic;
 import proofcompiler.ast.logic.UnaryOp;
 import proofcompiler.ast.logic.BinaryOp;
 import proofcompiler.ast.logic.Meta;
-import proofcompiler.ast.logic.PropositionVisitor;
+import proofcompiler.semantics.Semantics;
 
 public class Inference extends Step {
     private final String ruleName;
     private final Collection<Step> dependencies;
+    private final List<Proposition> antecedents;
+    private final Collection<Proposition> consequents;
 
     public static class InferenceConstructor implements Step.StepConstructor {
-        private final Collection<Proposition> antecedents;
+        private final Collection<Proposition> antecedentPatterns;
+        private final Collection<Proposition> consequentPatterns;
+        private final List<Proposition> antecedents;
         private final Collection<Proposition> consequents;
 
         InferenceConstructor(Collection<Proposition> antecedents, Collection<Proposition> consequents) {
-            this.antecedents = antecedents;
-            this.consequents = consequents;
+            this.antecedentPatterns = List.copyOf(antecedents);
+            this.consequentPatterns = List.copyOf(consequents);
+            var numbering = new Unifier.Numbering();
+            // Match the most specific antecedents first, so that a wrong
+            // assignment of the referenced lines is rejected early.
+            this.antecedents = antecedents.stream()
+                .map(numbering::visit)
+                .sorted(Comparator.comparingInt(Inference::specificity).reversed())
+                .collect(Collectors.toUnmodifiableList());
+            this.consequents = consequents.stream()
+                .map(numbering::visit)
+                .collect(Collectors.toUnmodifiableList());
+        }
+
+        /**
+         * The antecedents of the rule, as declared.
+         */
+        public Collection<Proposition> antecedents() {
+            return antecedentPatterns;
+        }
+
+        /**
+         * The alternative consequents of the rule, as declared.
+         */
+        public Collection<Proposition> consequents() {
+            return consequentPatterns;
+        }
+
+        /**
+         * Whether `proposition` follows from `deps` by this rule.
+         */
+        boolean matches(List<Proposition> deps, Proposition proposition) {
+            return deps.size() == antecedents.size() && match(antecedents, consequents, deps, proposition);
         }
 
         @Override
-        public Inference apply(Number number, Proposition proposition, String ruleName, Collection<Step> dependencies)
+        public Inference apply(int index, Number number, Proposition proposition, String ruleName, Collection<Step> dependencies)
             throws Step.RuleCheckException {
-            return new Inference(number, proposition, ruleName, dependencies, antecedents, consequents);
+            return new Inference(index, number, proposition, ruleName, dependencies, antecedents, consequents);
         }
     }
 
@@ -44,35 +75,67 @@ public class Inference extends Step {
     public class RuleCheckException extends Step.RuleCheckException {
         public static final long serialVersionUID = 0;
 
+        private final List<Proposition> deps;
+        private Semantics.Verdict entailed = null;
+        private List<String> suggestions = null;
+
+        public RuleCheckException(List<Proposition> deps) {
+            this.deps = deps;
+        }
+
+        /**
+         * Whether the proposition of the line follows from the referenced
+         * lines at all, by any rule, decided on first use.
+         */
+        public synchronized Semantics.Verdict entailed() {
+            if (entailed == null)
+                entailed = Semantics.entails(deps, proposition);
+            return entailed;
+        }
+
+        /**
+         * Names of the rules by which the line would have been valid,
+         * found on first use.
+         */
+        public synchronized List<String> suggestions() {
+            if (suggestions == null)
+                suggestions = Suggestions.find(deps, proposition, entailed());
+            return suggestions;
+        }
+
         @Override
         public String getMessage() {
-            return String.format("%s: inference rule does not match", super.getMessage());
+            String message = String.format("%s: inference rule does not match", super.getMessage());
+            switch (entailed()) {
+                case YES:
+                    message += ", although the line follows from the referenced lines";
+                    break;
+                case NO:
+                    message += ", and the line does not follow from the referenced lines";
+                    break;
+                default:
+                    break;
+            }
+            return message + Suggestions.describe(suggestions());
         }
     }
 
-    private static Proposition and(Collection<Proposition> props) {
-        return foldl((l, r) -> Proposition.and(l, r), Proposition.TRUE, props);
-    }
-
     private Inference(
-            Number number, Proposition proposition, String ruleName, Collection<Step> dependencies,
-            Collection<Proposition> antecedents, Collection<Proposition> consequents)
+            int index, Number number, Proposition proposition, String ruleName, Collection<Step> dependencies,
+            List<Proposition> antecedents, Collection<Proposition> consequents)
             throws Step.RuleCheckException {
-        super(number, proposition, dependencies, antecedents.size());
-        var deps = dependencies.stream().map(s -> s.proposition).collect(Collectors.toList());
-        boolean valid = findPermutation(deps, () -> {
-            for (Proposition consequent : consequents) {
-                Proposition target = Proposition.implies(and(deps), proposition);
-                Proposition rule = Proposition.implies(and(antecedents), consequent);
-                if (unify(rule, target) != null)
-                    return true;
-            }
-            return false;
-        });
-        if (!valid)
-            throw new RuleCheckException();
+        super(index, number, proposition, dependencies, antecedents.size());
         this.ruleName = ruleName;
         this.dependencies = dependencies;
+        this.antecedents = antecedents;
+        this.consequents = consequents;
+    }
+
+    @Override
+    public void check() throws Step.RuleCheckException {
+        var deps = dependencies.stream().map(s -> s.proposition).collect(Collectors.toList());
+        if (!match(antecedents, consequents, deps, proposition))
+            throw new RuleCheckException(deps);
     }
 
     @Override
@@ -85,97 +148,94 @@ public class Inference extends Step {
         return dependencies;
     }
 
-    private static <T, R> boolean findPermutation(List<T> range, Supplier<Boolean> f) {
-        if (range.isEmpty())
-            return f.get();
-        for (int i = 0; i < range.size(); i++) {
-            T tmp = range.get(0);
-            range.set(0, range.get(i));
-            range.set(i, tmp);
-            if (findPermutation(range.subList(1, range.size()), f))
-                return true;
-            tmp = range.get(0);
-            range.set(0, range.get(i));
-            range.set(i, tmp);
-        }
-        return false;
-    }
-
-    public static Map<Meta, Proposition> unify(Proposition rule, Proposition target) {
-        return new UnifierCreator().visit(rule).visit(target);
-    }
-
-    private static class MetaUnifier
-            extends PropositionVisitor<Map<Meta, Proposition>> {
-        private final Meta rule;
-        public MetaUnifier(Meta rule) { this.rule = rule; }
-        @Override public Map<Meta, Proposition> visitTrue()            { return Map.of(rule, Proposition.TRUE); }
-        @Override public Map<Meta, Proposition> visitFalse()           { return Map.of(rule, Proposition.FALSE); }
-        @Override public Map<Meta, Proposition> visit(Atomic   target) { return Map.of(rule, target); }
-        @Override public Map<Meta, Proposition> visit(UnaryOp  target) { return Map.of(rule, target); }
-        @Override public Map<Meta, Proposition> visit(BinaryOp target) { return Map.of(rule, target); }
-    }
-
-    private static class TrueUnifier
-            extends PropositionVisitor<Map<Meta, Proposition>> {
-        @Override public Map<Meta, Proposition> visitTrue() { return Map.of(); }
-    }
-
-    private static class FalseUnifier
-            extends PropositionVisitor<Map<Meta, Proposition>> {
-        @Override public Map<Meta, Proposition> visitFalse() { return Map.of(); }
-    }
-
-    private static class AtomicUnifier
-            extends PropositionVisitor<Map<Meta, Proposition>> {
-        private final Atomic rule;
-        public AtomicUnifier(Atomic rule) { this.rule = rule; }
-        @Override public Map<Meta, Proposition> visit(Atomic target) {
-            return rule.equals(target) ? Map.of() : null;
-        }
-    }
-
-    private static class UnaryUnifier
-            extends PropositionVisitor<Map<Meta, Proposition>> {
-        private final UnaryOp rule;
-        public UnaryUnifier(UnaryOp rule) { this.rule = rule; }
-        @Override public Map<Meta, Proposition> visit(UnaryOp target) {
-            return rule.type == target.type ? unify(rule.arg, target.arg) : null;
+    /**
+     * Number of operators in a rule pattern.
+     * Patterns with more operators constrain the matched proposition more.
+     */
+    private static int specificity(Proposition pattern) {
+        if (pattern instanceof UnaryOp)
+            return 1 + specificity(((UnaryOp) pattern).arg);
+        if (pattern instanceof BinaryOp)
+            return 1 + specificity(((BinaryOp) pattern).lhs) + specificity(((BinaryOp) pattern).rhs);
+        return 0;
+    }
+
+    /**
+     * Returns true if `target` can possibly be an instance of `pattern`,
+     * judging by the top-level operator only.
+     */
+    private static boolean plausible(Proposition pattern, Proposition target) {
+        if (pattern instanceof Meta)
+            return true;
+        if (pattern instanceof UnaryOp)
+            return target instanceof UnaryOp && ((UnaryOp) pattern).type == ((UnaryOp) target).type;
+        if (pattern instanceof BinaryOp)
+            return target instanceof BinaryOp && ((BinaryOp) pattern).type == ((BinaryOp) target).type;
+        return pattern.equals(target);
+    }
+
+    /**
+     * Decides whether `proposition` follows from `deps` by the rule
+     * `antecedents ⊢ consequents`, for some assignment of the dependencies to
+     * the antecedents. Meta variables of the rule must be numbered.
+     *
+     * The consequent is unified first, then the dependencies are assigned to
+     * the antecedents one by one, backtracking as soon as an assignment is
+     * inconsistent with the substitution built so far.
+     */
+    static boolean match(
+            List<Proposition> antecedents,
+            Collection<Proposition> consequents,
+            List<Proposition> deps,
+            Proposition proposition) {
+        for (Proposition antecedent : antecedents)
+            if (deps.stream().noneMatch(dep -> plausible(antecedent, dep)))
+                return false;
+        var unifier = Unifier.acquire();
+        try {
+            for (Proposition consequent : consequents) {
+                if (unifier.unify(consequent, proposition)
+                        && assign(unifier, antecedents, deps, new boolean[deps.size()], 0))
+                    return true;
+                unifier.undo(0);
+            }
+            return false;
+        } finally {
+            unifier.release();
         }
     }
 
-    private static class BinaryUnifier
-            extends PropositionVisitor<Map<Meta, Proposition>> {
-        private final BinaryOp rule;
-        public BinaryUnifier(BinaryOp rule) { this.rule = rule; }
-        @Override public Map<Meta, Proposition> visit(BinaryOp target) {
-            if (rule.type != target.type)
-                return null;
-            var lhs = unify(rule.lhs, target.lhs);
-            if (lhs == null)
-                return null;
-            var rhs = unify(rule.rhs, target.rhs);
-            if (rhs == null)
-                return null;
-            var result = new HashMap<Meta, Proposition>(lhs);
-            for (var entry : rhs.entrySet()) {
-                Proposition prev = result.get(entry.getKey());
-                if (prev == null)
-                    result.put(entry.getKey(), entry.getValue());
-                else if (!prev.equals(entry.getValue()))
-                    return null;
+    private static boolean assign(
+            Unifier unifier,
+            List<Proposition> antecedents,
+            List<Proposition> deps,
+            boolean[] used,
+            int i) {
+        if (i == antecedents.size())
+            return true;
+        Proposition antecedent = antecedents.get(i);
+        for (int j = 0; j < deps.size(); j++) {
+            if (used[j] || !plausible(antecedent, deps.get(j)))
+                continue;
+            int mark = unifier.mark();
+            if (unifier.unify(antecedent, deps.get(j))) {
+                used[j] = true;
+                if (assign(unifier, antecedents, deps, used, i + 1))
+                    return true;
+                used[j] = false;
             }
-            return Collections.unmodifiableMap(result);
+            unifier.undo(mark);
         }
+        return false;
     }
 
-    private static class UnifierCreator
-            extends PropositionVisitor<PropositionVisitor<Map<Meta, Proposition>>> {
-        @Override public PropositionVisitor<Map<Meta, Proposition>> visitTrue()          { return new   TrueUnifier(); }
-        @Override public PropositionVisitor<Map<Meta, Proposition>> visitFalse()         { return new  FalseUnifier(); }
-        @Override public PropositionVisitor<Map<Meta, Proposition>> visit(Meta     rule) { return new   MetaUnifier(rule); }
-        @Override public PropositionVisitor<Map<Meta, Proposition>> visit(Atomic   rule) { return new AtomicUnifier(rule); }
-        @Override public PropositionVisitor<Map<Meta, Proposition>> visit(UnaryOp  rule) { return new  UnaryUnifier(rule); }
-        @Override public PropositionVisitor<Map<Meta, Proposition>> visit(BinaryOp rule) { return new BinaryUnifier(rule); }
+    public static Map<Meta, Proposition> unify(Proposition rule, Proposition target) {
+        var numbering = new Unifier.Numbering();
+        var unifier = Unifier.acquire();
+        try {
+            return unifier.unify(numbering.visit(rule), target) ? unifier.substitution(numbering) : null;
+        } finally {
+            unifier.release();
+        }
     }
 }
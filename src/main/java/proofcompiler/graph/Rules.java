@@ -0,0 +1,196 @@
+package proofcompiler.graph;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.List;
+import proofcompiler.ast.logic.Proposition;
+import static proofcompiler.ast.logic.Proposition.TRUE;
+import static proofcompiler.ast.logic.Proposition.FALSE;
+import static proofcompiler.ast.logic.Proposition.meta;
+import static proofcompiler.ast.logic.Proposition.not;
+import static proofcompiler.ast.logic.Proposition.and;
+import static proofcompiler.ast.logic.Proposition.or;
+import static proofcompiler.ast.logic.Proposition.xor;
+import static proofcompiler.ast.logic.Proposition.biconditional;
+import static proofcompiler.ast.logic.Proposition.implies;
+import static proofcompiler.graph.Equivalence.equ;
+
+/**
+ * The rules steps can use, by name, except the given, assumption and
+ * direct proof rules.
+ *
+ * The rules are grouped in families, the inference rules and the
+ * equivalence rules, and each family is compiled the first time one of its
+ * rules is used: a run checking only equivalences never compiles the
+ * inference rules, and the other way around. Each family lives in a holder
+ * class, so that the JVM compiles it once and publishes its immutable
+ * table safely to all threads, without locks on lookups.
+ */
+public final class Rules {
+    private Rules() {}
+
+    // Names of the rules of each family, to find the family of a name
+    // without compiling it
+    private static final Set<String> INFERENCE_NAMES = Set.of(
+            "excluded middle", "modus ponens", "intro and", "elim and",
+            "intro or", "elim or", "proof by cases");
+    private static final Set<String> EQUIVALENCE_NAMES = Set.of(
+            "definition of xor", "definition of biconditional",
+            "identity", "domination", "idempotency", "commutativity",
+            "associativity", "distributivity", "absorption", "negation",
+            "demorgan's law", "double negation", "law of implication",
+            "contrapositive",
+            "complementarity", "null", "involution", "uniting", "consensus",
+            "factoring");
+
+    private static final class Inferences {
+        static final Map<String, Inference.InferenceConstructor> RULES;
+
+        static {
+            Map<String, Inference.InferenceConstructor> rules = new HashMap<>();
+            Proposition A = meta("A");
+            Proposition B = meta("B");
+            Proposition C = meta("C");
+            rules.put("excluded middle", Inference.rule(
+                        List.of(),
+                        List.of(or(A, not(A)))));
+            rules.put("modus ponens",    Inference.rule(
+                        List.of(A, implies(A, B)),
+                        List.of(B)));
+            rules.put("intro and",       Inference.rule(
+                        List.of(A, B),
+                        List.of(and(A, B))));
+            rules.put("elim and",        Inference.rule(
+                        List.of(and(A, B)),
+                        List.of(A, B)));
+            rules.put("intro or",        Inference.rule(
+                        List.of(A),
+                        List.of(or(A, B), or(B, A))));
+            rules.put("elim or",         Inference.rule(
+                        List.of(or(A, B), not(A)),
+                        List.of(B)));
+            rules.put("proof by cases",  Inference.rule(
+                        List.of(or(A, B), implies(A, C), implies(B, C)),
+                        List.of(C)));
+            RULES = Map.copyOf(rules);
+        }
+    }
+
+    private static final class Equivalences {
+        static final Map<String, Equivalence.EquivalenceConstructor> RULES;
+
+        static {
+            Map<String, Equivalence.EquivalenceConstructor> rules = new HashMap<>();
+
+            // Definitions
+            Proposition p = meta("p");
+            Proposition q = meta("q");
+            Proposition r = meta("r");
+            rules.put("definition of xor",  Equivalence.rule(List.of(
+                            equ(xor(p, q), or(and(p, not(q)), and(not(p), q))),
+                            equ(xor(p, q), and(or(p, q), or(not(p), not(q))))
+                        )));
+            rules.put("definition of biconditional",  Equivalence.rule(List.of(
+                            equ(biconditional(p, q), and(implies(p, q), implies(q, p)))
+                        )));
+
+            // Equivalence rules
+            rules.put("identity",           Equivalence.rule(List.of(
+                            equ(and(p, TRUE), p),
+                            equ(or(p, FALSE), p)
+                        )));
+            rules.put("domination",         Equivalence.rule(List.of(
+                            equ(or(p, TRUE), TRUE),
+                            equ(and(p, FALSE), FALSE)
+                        )));
+            rules.put("idempotency",        Equivalence.rule(List.of(
+                            equ( or(p, p), p),
+                            equ(and(p, p), p)
+                        )));
+            rules.put("commutativity",      Equivalence.rule(List.of(
+                            equ( or(p, q),  or(q, p)),
+                            equ(and(p, q), and(q, p))
+                        )));
+            rules.put("associativity",      Equivalence.rule(List.of(
+                            equ( or( or(p, q), r),  or(p,  or(q, r))),
+                            equ(and(and(p, q), r), and(p, and(q, r)))
+                        )));
+            rules.put("distributivity",     Equivalence.rule(List.of(
+                            equ(and(p,  or(q, r)),  or(and(p, q), and(p, r))),
+                            equ( or(p, and(q, r)), and( or(p, q),  or(p, r)))
+                        )));
+            rules.put("negation",           Equivalence.rule(List.of(
+                            equ( or(p, not(p)), TRUE),
+                            equ(and(p, not(p)), FALSE)
+                        )));
+            rules.put("demorgan's law",     Equivalence.rule(List.of(
+                            equ(not( or(p, q)), and(not(p), not(q))),
+                            equ(not(and(p, q)),  or(not(p), not(q)))
+                        )));
+            rules.put("double negation",    Equivalence.rule(List.of(
+                            equ(not(not(p)), p)
+                        )));
+            rules.put("law of implication", Equivalence.rule(List.of(
+                            equ(implies(p, q), or(not(p), q))
+                        )));
+            rules.put("contrapositive",     Equivalence.rule(List.of(
+                            equ(implies(p, q), implies(not(q), not(p)))
+                        )));
+
+            // Equivalence rules by boolean algebra names
+            Proposition X = meta("X");
+            Proposition Y = meta("Y");
+            Proposition Z = meta("Z");
+            rules.put("complementarity",    rules.get("negation"));
+            rules.put("null",               rules.get("domination"));
+            rules.put("involution",         rules.get("double negation"));
+            rules.put("uniting",            Equivalence.rule(List.of(
+                            equ( or(and(X, Y), and(X, not(Y))), X),
+                            equ(and( or(X, Y),  or(X, not(Y))), X)
+                        )));
+            // Also covers the absorption of the propositional rules
+            rules.put("absorption",         Equivalence.rule(List.of(
+                            equ( or(X, and(X, Y)), X),
+                            equ(and(X,  or(X, Y)), X),
+                            equ(and( or(X, not(Y)), Y), and(X, Y)),
+                            equ( or(and(X, not(Y)), Y),  or(X, Y))
+                        )));
+            rules.put("consensus",          Equivalence.rule(List.of(
+                            equ( or( or(and(X, Y), and(Y, Z)), and(not(X), Z)),  or(and(X, Y), and(not(X), Z))),
+                            equ(and(and( or(X, Y),  or(Y, Z)),  or(not(X), Z)), and( or(X, Y),  or(not(X), Z)))
+                        )));
+            rules.put("factoring",          Equivalence.rule(List.of(
+                            equ(and( or(X, Y),  or(not(X), Z)),  or(and(X, Z), and(not(X), Y))),
+                            equ( or(and(X, Y), and(not(X), Z)), and( or(X, Z),  or(not(X), Y)))
+                        )));
+            RULES = Map.copyOf(rules);
+        }
+    }
+
+    /**
+     * Returns the rule named `name`, or null if there is none. Only the
+     * family of the rule is compiled.
+     */
+    public static Step.StepConstructor get(String name) {
+        if (INFERENCE_NAMES.contains(name))
+            return Inferences.RULES.get(name);
+        if (EQUIVALENCE_NAMES.contains(name))
+            return Equivalences.RULES.get(name);
+        return null;
+    }
+
+    /**
+     * The inference rules, by name.
+     */
+    public static Map<String, Inference.InferenceConstructor> inferences() {
+        return Inferences.RULES;
+    }
+
+    /**
+     * The equivalence rules, by name.
+     */
+    public static Map<String, Equivalence.EquivalenceConstructor> equivalences() {
+        return Equivalences.RULES;
+    }
+}
@@ -0,0 +1,139 @@
+package proofcompiler.graph;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import proofcompiler.ast.logic.Proposition;
+import proofcompiler.semantics.Semantics;
+
+/**
+ * Finds the rules that would have validated a line whose rule does not
+ * match, to suggest them in its error.
+ *
+ * The plausible rules are tried concurrently on the common pool. A rule is
+ * plausible if it takes as many lines as the line references, and, for an
+ * inference rule, if one of its consequents has a skeleton that fits the
+ * line. All rules are sound, so inference rules are only tried if the
+ * referenced lines entail the line, and equivalence rules if the
+ * referenced line is equivalent to it.
+ *
+ * The work per line is bounded by counts rather than by time, so that the
+ * suggestions only depend on the line, not on the load of the pool: the
+ * entailment and equivalence checks give up after a number of conflicts
+ * and BDD nodes, and each rule after a number of unification steps, in
+ * which case it is not suggested.
+ */
+final class Suggestions {
+    private Suggestions() {}
+
+    // Bounds of the work on one line
+    private static final long MAX_CONFLICTS = 1_000;
+    private static final int MAX_NODES = 1 << 14;
+    private static final long MAX_STEPS = 10_000;
+
+    /**
+     * A rule, with all its names.
+     */
+    private static final class Candidate {
+        final List<String> names = new ArrayList<>(1);
+        final Inference.InferenceConstructor inference;
+        final Equivalence.EquivalenceConstructor equivalence;
+
+        Candidate(Inference.InferenceConstructor inference, Equivalence.EquivalenceConstructor equivalence) {
+            this.inference = inference;
+            this.equivalence = equivalence;
+        }
+
+        boolean matches(List<Proposition> deps, Proposition proposition) {
+            if (inference != null)
+                return inference.matches(deps, proposition);
+            return deps.size() == 1 && equivalence.matches(deps.get(0), proposition);
+        }
+    }
+
+    /**
+     * The rules, compiled the first time a suggestion is needed.
+     */
+    private static final class Index {
+        // Inference rules by the skeletons of their consequents
+        static final DiscriminationTree<Candidate> INFERENCES = new DiscriminationTree<>();
+        static final List<Candidate> EQUIVALENCES = new ArrayList<>();
+
+        static {
+            Map<Step.StepConstructor, Candidate> candidates = new IdentityHashMap<>();
+            for (var rule : Rules.inferences().entrySet()) {
+                Candidate candidate = candidates.get(rule.getValue());
+                if (candidate == null) {
+                    candidate = new Candidate(rule.getValue(), null);
+                    candidates.put(rule.getValue(), candidate);
+                    var numbering = new Unifier.Numbering();
+                    for (Proposition consequent : rule.getValue().consequents())
+                        INFERENCES.insert(candidate, numbering.visit(consequent));
+                }
+                candidate.names.add(rule.getKey());
+            }
+            for (var rule : Rules.equivalences().entrySet()) {
+                Candidate candidate = candidates.get(rule.getValue());
+                if (candidate == null) {
+                    candidate = new Candidate(null, rule.getValue());
+                    candidates.put(rule.getValue(), candidate);
+                    EQUIVALENCES.add(candidate);
+                }
+                candidate.names.add(rule.getKey());
+            }
+        }
+    }
+
+    /**
+     * Names of the rules by which `proposition` follows from `deps`, sorted.
+     *
+     * @param entailed whether `deps` entail `proposition`, or null if not
+     *        known yet
+     */
+    static List<String> find(List<Proposition> deps, Proposition proposition, Semantics.Verdict entailed) {
+        List<Candidate> candidates = new ArrayList<>();
+        Set<Candidate> inferences = new LinkedHashSet<>(Index.INFERENCES.candidates(proposition));
+        inferences.removeIf(candidate -> candidate.inference.antecedents().size() != deps.size());
+        if (!inferences.isEmpty()) {
+            if (entailed == null)
+                entailed = Semantics.entails(deps, proposition, MAX_CONFLICTS);
+            if (entailed != Semantics.Verdict.NO)
+                candidates.addAll(inferences);
+        }
+        if (deps.size() == 1 && Semantics.equivalent(deps.get(0), proposition, MAX_NODES) != Semantics.Verdict.NO)
+            candidates.addAll(Index.EQUIVALENCES);
+
+        List<ForkJoinTask<Boolean>> tasks = new ArrayList<>(candidates.size());
+        for (Candidate candidate : candidates)
+            tasks.add(ForkJoinPool.commonPool().submit(
+                        () -> Unifier.bounded(MAX_STEPS, () -> candidate.matches(deps, proposition))));
+        Set<String> names = new TreeSet<>();
+        for (int i = 0; i < tasks.size(); i++)
+            if (tasks.get(i).join())
+                names.addAll(candidates.get(i).names);
+        return List.copyOf(names);
+    }
+
+    /**
+     * Describes the suggested rules as the end of an error message, or
+     * returns an empty string if there are none.
+     */
+    static String describe(List<String> names) {
+        if (names.isEmpty())
+            return "";
+        StringBuilder sb = new StringBuilder("; ");
+        for (int i = 0; i < names.size(); i++) {
+            if (i > 0)
+                sb.append(i == names.size() - 1 ? " or " : ", ");
+            sb.append('\'').append(names.get(i)).append('\'');
+        }
+        return sb.append(" would match").toString();
+    }
+}
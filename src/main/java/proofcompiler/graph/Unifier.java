@@ -0,0 +1,221 @@
+package proofcompiler.graph;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.HashMap;
+import java.util.function.BooleanSupplier;
+import proofcompiler.ast.logic.Proposition;
+import proofcompiler.ast.logic.Atomic;
+import proofcompiler.ast.logic.UnaryOp;
+import proofcompiler.ast.logic.BinaryOp;
+import proofcompiler.ast.logic.Meta;
+import proofcompiler.ast.logic.PropositionVisitor;
+
+/**
+ * Unifier for rule patterns with numbered meta variables.
+ *
+ * Bindings are stored in an array indexed by the slots of the meta
+ * variables, and accumulate across calls to `unify`. Every binding is
+ * recorded on a trail, so that the bindings can be rolled back to an
+ * earlier `mark` with `undo`. Unifying does not allocate once the arrays
+ * have grown to the number of slots of the rules in use.
+ *
+ * A unifier is not thread-safe. Use `acquire()` to get the instance of
+ * the current thread, and `release()` it when done. A nested `acquire()`
+ * on the same thread gets a fresh unifier, so that it never clears the
+ * bindings of the outer one.
+ *
+ * `bounded` runs a match with a bound of unification steps on the
+ * unifier of the current thread, so that its cost does not depend on
+ * timing.
+ */
+final class Unifier extends PropositionVisitor<Boolean> {
+    private static final ThreadLocal<Unifier> LOCAL = ThreadLocal.withInitial(Unifier::new);
+
+    private Proposition[] bindings = new Proposition[8];
+    private int[] trail = new int[8];
+    private int size = 0;
+    private Proposition target;
+    private boolean acquired = false;
+    // Unification steps left before the current match is abandoned
+    private long budget = Long.MAX_VALUE;
+
+    private Unifier() {}
+
+    /**
+     * Thrown out of `unify` when the bound of steps is exhausted.
+     */
+    private static final class ExhaustedException extends RuntimeException {
+        private static final long serialVersionUID = 0;
+        static final ExhaustedException INSTANCE = new ExhaustedException();
+
+        private ExhaustedException() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * Returns a unifier with no bindings: the one of the current thread,
+     * or a fresh one if it is already acquired.
+     */
+    static Unifier acquire() {
+        Unifier unifier = LOCAL.get();
+        if (unifier.acquired)
+            unifier = new Unifier();
+        unifier.acquired = true;
+        return unifier;
+    }
+
+    /**
+     * Drops the bindings and gives the unifier back.
+     */
+    void release() {
+        undo(0);
+        acquired = false;
+    }
+
+    /**
+     * Runs `match`, which must unify with the unifier of the current
+     * thread, and returns its result, or false if it takes more than
+     * `steps` unification steps.
+     */
+    static boolean bounded(long steps, BooleanSupplier match) {
+        Unifier unifier = LOCAL.get();
+        unifier.budget = steps;
+        try {
+            return match.getAsBoolean();
+        } catch (ExhaustedException e) {
+            return false;
+        } finally {
+            unifier.budget = Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Renames the meta variables of the patterns of one rule to numbered
+     * meta variables. Meta variables of the same name get the same slot
+     * across all patterns passed to the same numbering.
+     */
+    static final class Numbering extends PropositionVisitor<Proposition> {
+        private final Map<String, Meta> slots = new HashMap<>();
+
+        @Override public Proposition visitTrue()  { return Proposition.TRUE; }
+        @Override public Proposition visitFalse() { return Proposition.FALSE; }
+        @Override public Proposition visit(Atomic atomic) { return atomic; }
+
+        @Override
+        public Proposition visit(Meta meta) {
+            return slots.computeIfAbsent(meta.name, name -> Proposition.meta(name, slots.size()));
+        }
+
+        @Override
+        public Proposition visit(UnaryOp unary) {
+            return Proposition.unary(unary.type, visit(unary.arg));
+        }
+
+        @Override
+        public Proposition visit(BinaryOp binary) {
+            return Proposition.binary(binary.type, visit(binary.lhs), visit(binary.rhs));
+        }
+    }
+
+    /**
+     * Unifies `rule` with `target` under the current bindings.
+     * On failure, bindings made by this call may be left on the trail.
+     */
+    boolean unify(Proposition rule, Proposition target) {
+        if (--budget < 0)
+            throw ExhaustedException.INSTANCE;
+        this.target = target;
+        return visit(rule);
+    }
+
+    int mark() {
+        return size;
+    }
+
+    void undo(int mark) {
+        while (size > mark)
+            bindings[trail[--size]] = null;
+    }
+
+    /**
+     * Returns the current bindings of the meta variables renamed by
+     * `numbering`, keyed by the unnumbered meta variables.
+     */
+    Map<Meta, Proposition> substitution(Numbering numbering) {
+        var result = new HashMap<Meta, Proposition>();
+        for (Meta meta : numbering.slots.values())
+            if (meta.slot < bindings.length && bindings[meta.slot] != null)
+                result.put(Proposition.meta(meta.name), bindings[meta.slot]);
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * Substitutes the current bindings for the numbered meta variables of
+     * `pattern`. Returns null if one of them is unbound.
+     */
+    Proposition instantiate(Proposition pattern) {
+        if (pattern instanceof Meta) {
+            int slot = ((Meta) pattern).slot;
+            return slot < bindings.length ? bindings[slot] : null;
+        }
+        if (pattern instanceof UnaryOp) {
+            UnaryOp unary = (UnaryOp) pattern;
+            Proposition arg = instantiate(unary.arg);
+            return arg == null ? null : Proposition.unary(unary.type, arg);
+        }
+        if (pattern instanceof BinaryOp) {
+            BinaryOp binary = (BinaryOp) pattern;
+            Proposition lhs = instantiate(binary.lhs);
+            Proposition rhs = lhs == null ? null : instantiate(binary.rhs);
+            return rhs == null ? null : Proposition.binary(binary.type, lhs, rhs);
+        }
+        return pattern;
+    }
+
+    @Override public Boolean visitTrue()  { return target == Proposition.TRUE; }
+    @Override public Boolean visitFalse() { return target == Proposition.FALSE; }
+
+    @Override
+    public Boolean visit(Meta rule) {
+        int slot = rule.slot;
+        if (slot < 0)
+            throw new IllegalArgumentException(
+                    String.format("Unnumbered meta variable: %s", rule));
+        if (slot >= bindings.length)
+            bindings = Arrays.copyOf(bindings, Math.max(slot + 1, 2 * bindings.length));
+        Proposition prev = bindings[slot];
+        if (prev != null)
+            return prev.equals(target);
+        bindings[slot] = target;
+        if (size == trail.length)
+            trail = Arrays.copyOf(trail, 2 * trail.length);
+        trail[size++] = slot;
+        return true;
+    }
+
+    @Override
+    public Boolean visit(Atomic rule) {
+        return rule.equals(target);
+    }
+
+    @Override
+    public Boolean visit(UnaryOp rule) {
+        if (!(target instanceof UnaryOp))
+            return false;
+        UnaryOp target = (UnaryOp) this.target;
+        return rule.type == target.type && unify(rule.arg, target.arg);
+    }
+
+    @Override
+    public Boolean visit(BinaryOp rule) {
+        if (!(target instanceof BinaryOp))
+            return false;
+        BinaryOp target = (BinaryOp) this.target;
+        return rule.type == target.type
+            && unify(rule.lhs, target.lhs)
+            && unify(rule.rhs, target.rhs);
+    }
+}
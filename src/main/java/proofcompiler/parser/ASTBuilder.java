@@ -2,6 +2,7 @@ package proofcompiler.parser;
 
 import java.io.InputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.List;
 import java.util.ArrayList;
@@ -14,6 +15,9 @@ import static java.util.stream.Collectors.toUnmodifiableSet;
 import org.antlr.v4.runtime.CharStreams;
 import org.antlr.v4.runtime.CommonTokenStream;
 import org.antlr.v4.runtime.BailErrorStrategy;
+import org.antlr.v4.runtime.ConsoleErrorListener;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.atn.PredictionMode;
 import org.antlr.v4.runtime.misc.ParseCancellationException;
 import org.antlr.v4.runtime.tree.ParseTreeWalker;
 
@@ -29,20 +33,95 @@ import proofcompiler.ast.logic.Atomic;
 import proofcompiler.ast.logic.UnaryOp;
 import proofcompiler.ast.logic.BinaryOp;
 
+/**
+ * Parses proofs and builds their AST.
+ *
+ * Unless disabled, proofs are first parsed by `FastParser`, and by ANTLR
+ * only if it rejects them, which reports the errors.
+ *
+ * ANTLR first parses with SLL prediction, which is faster and sufficient
+ * for almost all inputs, and parses again with full LL prediction only if
+ * SLL fails, so that errors are the same as with LL. The lexer and the
+ * parser are reused across calls, and the DFA built by prediction is
+ * shared by all parsers. They are created on first use, since loading
+ * their ATN is a large part of the startup of the compiler, and most
+ * proofs do not need them.
+ *
+ * Propositions may nest parentheses and negations at most `MAX_DEPTH`
+ * deep, so that the recursive parsers stay within the stack of a thread.
+ * Deeper proofs are parser errors.
+ *
+ * A builder is not thread-safe. Use `local()` to get the instance of the
+ * current thread.
+ */
 public class ASTBuilder extends ProofParserBaseListener {
+    private static final ThreadLocal<ASTBuilder> LOCAL = ThreadLocal.withInitial(ASTBuilder::new);
+
+    // ANTLR parses this deep with a stack of 512 KB
+    static final int MAX_DEPTH = 256;
+
+    private final boolean fast;
+    private ProofLexer lexer;
+    private ProofParser parser;
+
+    public ASTBuilder() {
+        this(true);
+    }
+
+    /**
+     * @param fast whether to try `FastParser` before ANTLR
+     */
+    public ASTBuilder(boolean fast) {
+        this.fast = fast;
+    }
+
+    /**
+     * Returns the builder of the current thread.
+     */
+    public static ASTBuilder local() {
+        return LOCAL.get();
+    }
 
     public Proof parse(InputStream input) throws ParserException, IOException {
-        var chars = CharStreams.fromStream(input);
-        var lexer = new ProofLexer(chars);
+        // Decoded as ANTLR does, malformed input is replaced
+        String source = new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        if (fast) {
+            Proof proof = FastParser.parse(source);
+            if (proof != null)
+                return proof;
+        }
+        if (parser == null) {
+            lexer = new ProofLexer(null);
+            parser = new ProofParser(null);
+            parser.setErrorHandler(new BailErrorStrategy());
+        }
+        lexer.setInputStream(CharStreams.fromString(source));
         var tokens = new CommonTokenStream(lexer);
-        var parser = new ProofParser(tokens);
-        parser.setErrorHandler(new BailErrorStrategy());
         ProofParser.RootContext root;
         try {
-            root = parser.root();
+            tokens.fill();
+            checkDepth(tokens.getTokens());
+            try {
+                parser.setTokenStream(tokens);
+                parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+                // Syntax errors are reported by the LL stage only
+                parser.removeErrorListeners();
+                root = parser.root();
+            } catch (ParseCancellationException e) {
+                // Possibly a false error of SLL, the tokens are not lexed again
+                tokens.seek(0);
+                parser.setTokenStream(tokens);
+                parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+                parser.addErrorListener(ConsoleErrorListener.INSTANCE);
+                root = parser.root();
+            }
             ParseTreeWalker.DEFAULT.walk(this, root);
         } catch (ParseCancellationException e) {
             throw new ParserException(e.getCause());
+        } finally {
+            // Do not retain the input until the next call
+            parser.setTokenStream(null);
+            lexer.setInputStream(null);
         }
         return root.value;
     }
@@ -128,12 +207,7 @@ public class ASTBuilder extends ProofParserBaseListener {
                 .collect(toUnmodifiableList()));
     }
 
-    @Override
-    public void exitRuleName(ProofParser.RuleNameContext ctx) {
-        ctx.value = String.join(" ", ctx.ID().stream()
-                .map(terminal -> terminal.getText())
-                .collect(toUnmodifiableList()));
-        Map<String, String> operators = Map.of(
+    static final Map<String, String> OPERATORS = Map.of(
             "\\land",           "and",
             "\\wedge",          "and",
             "∧",                "and",
@@ -145,46 +219,56 @@ public class ASTBuilder extends ProofParserBaseListener {
             "\\leftrightarrow", "biconditional",
             "↔",                "biconditional"
             );
+
+    @Override
+    public void exitRuleName(ProofParser.RuleNameContext ctx) {
+        ctx.value = String.join(" ", ctx.ID().stream()
+                .map(terminal -> terminal.getText())
+                .collect(toUnmodifiableList()));
         if (ctx.operator() != null) {
             String op = ctx.operator().getText();
-            ctx.value += " " + operators.getOrDefault(op, op);
+            ctx.value += " " + OPERATORS.getOrDefault(op, op);
         }
     }
 
     @Override
-    public void exitPropositionImpl(ProofParser.PropositionImplContext ctx) {
-        ctx.value = Proposition.implies(ctx.propSum(0).value, ctx.propSum(1).value);
-    }
-
-    @Override
-    public void exitPropositionIff(ProofParser.PropositionIffContext ctx) {
-        ctx.value = Proposition.biconditional(ctx.propSum(0).value, ctx.propSum(1).value);
+    public void exitProposition(ProofParser.PropositionContext ctx) {
+        if (ctx.IMPLIES() != null)
+            ctx.value = Proposition.implies(ctx.propSum(0).value, ctx.propSum(1).value);
+        else if (ctx.IFF() != null)
+            ctx.value = Proposition.biconditional(ctx.propSum(0).value, ctx.propSum(1).value);
+        else
+            ctx.value = ctx.propSum(0).value;
     }
 
-    @Override
-    public void exitPropositionSum(ProofParser.PropositionSumContext ctx) {
-        ctx.value = ctx.propSum().value;
-    }
+    // Operands are folded to the left in place, these rules are the
+    // bulk of the parse tree
 
     @Override
     public void exitPropSum(ProofParser.PropSumContext ctx) {
-        ctx.value = foldl(Proposition::or, null, ctx.propXor().stream()
-                .map(ctxSub -> ctxSub.value)
-                .collect(toUnmodifiableList()));
+        var operands = ctx.propXor();
+        Proposition value = operands.get(0).value;
+        for (int i = 1; i < operands.size(); i++)
+            value = Proposition.or(value, operands.get(i).value);
+        ctx.value = value;
     }
 
     @Override
     public void exitPropXor(ProofParser.PropXorContext ctx) {
-        ctx.value = foldl(Proposition::xor, null, ctx.propProd().stream()
-                .map(ctxSub -> ctxSub.value)
-                .collect(toUnmodifiableList()));
+        var operands = ctx.propProd();
+        Proposition value = operands.get(0).value;
+        for (int i = 1; i < operands.size(); i++)
+            value = Proposition.xor(value, operands.get(i).value);
+        ctx.value = value;
     }
 
     @Override
     public void exitPropProd(ProofParser.PropProdContext ctx) {
-        ctx.value = foldl(Proposition::and, null, ctx.propAtom().stream()
-                .map(ctxSub -> ctxSub.value)
-                .collect(toUnmodifiableList()));
+        var operands = ctx.propAtom();
+        Proposition value = operands.get(0).value;
+        for (int i = 1; i < operands.size(); i++)
+            value = Proposition.and(value, operands.get(i).value);
+        ctx.value = value;
     }
 
     @Override
@@ -208,11 +292,67 @@ public class ASTBuilder extends ProofParserBaseListener {
         ctx.value = ctx.proposition().value;
     }
 
+    /**
+     * Throws if a proposition nests parentheses and negations deeper than
+     * `MAX_DEPTH`. A negation is pending until its operand ends.
+     */
+    private static void checkDepth(List<Token> tokens) throws ParserException {
+        // Negations pending at each level of parentheses
+        int[] negations = new int[MAX_DEPTH + 1];
+        int level = 0;
+        int depth = 0;
+        for (Token token : tokens) {
+            switch (token.getType()) {
+                case ProofLexer.NEG:
+                    if (++depth > MAX_DEPTH)
+                        throw tooDeep(token);
+                    negations[level]++;
+                    break;
+                case ProofLexer.LPAREN:
+                    if (++depth > MAX_DEPTH)
+                        throw tooDeep(token);
+                    negations[++level] = 0;
+                    break;
+                case ProofLexer.RPAREN:
+                    if (level == 0)
+                        break;
+                    depth -= negations[level--] + 1;
+                    // The parenthesized operand ends
+                    depth -= negations[level];
+                    negations[level] = 0;
+                    break;
+                case ProofLexer.ID:
+                    depth -= negations[level];
+                    negations[level] = 0;
+                    break;
+                case ProofLexer.EOL:
+                    level = 0;
+                    depth = 0;
+                    negations[0] = 0;
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    private static ParserException tooDeep(Token token) {
+        String message = String.format("line %d:%d nesting deeper than %d",
+                token.getLine(), token.getCharPositionInLine(), MAX_DEPTH);
+        // Reported like the syntax errors
+        System.err.println(message);
+        return new ParserException(message);
+    }
+
     public static class ParserException extends Exception {
         public static final long serialVersionUID = 0;
         ParserException(Throwable cause) {
             super(cause);
         }
+
+        ParserException(String message) {
+            super(message);
+        }
     }
 
 }
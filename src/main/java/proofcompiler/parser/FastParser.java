@@ -0,0 +1,424 @@
+package proofcompiler.parser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import proofcompiler.ast.Proof;
+import proofcompiler.ast.Declarations;
+import proofcompiler.ast.Line;
+import proofcompiler.ast.Number;
+import proofcompiler.ast.Rule;
+import proofcompiler.ast.logic.Proposition;
+
+/**
+ * Recursive descent parser of proofs, building the AST straight from the
+ * characters, without tokens or parse tree.
+ *
+ * It accepts the language of the ANTLR grammars and builds the same AST
+ * as `ASTBuilder`, but does not report errors: `parse` returns null for
+ * any input it does not accept, including the inputs the ANTLR lexer
+ * recovers from, so that the ANTLR parser parses them and reports the
+ * errors.
+ *
+ * Propositions nesting parentheses and negations deeper than
+ * `ASTBuilder.MAX_DEPTH` are rejected, like ANTLR rejects them, which
+ * also bounds the recursion.
+ *
+ * The lexer mirrors `ProofLexer`: keywords are only recognized before
+ * `proof.` or `equivalence.`, numbers and brackets only after, and
+ * single-line comments consume the end of their line.
+ */
+public final class FastParser {
+    private enum Kind {
+        EOF, EOL, ID, LPAREN, RPAREN, NEG, AND, OR, XOR, IMPLIES, IFF, EQUIV,
+        // Declarations only
+        START, STARTEQUIV, GIVEN, LET, BE, A, PROPOSITION,
+        // Proof body only
+        DOT, COMMA, COLON, POSINT, LBRACKET, RBRACKET
+    }
+
+    /**
+     * Thrown when the input is not accepted. Carries no stack trace, since
+     * it only unwinds to `parse`.
+     */
+    private static final class Rejected extends Exception {
+        private static final long serialVersionUID = 0;
+        static final Rejected INSTANCE = new Rejected();
+
+        private Rejected() {
+            super(null, null, false, false);
+        }
+    }
+
+    // Commands of the operators, with their kind
+    private static final String[] COMMANDS = {
+        "\\neg", "\\lnot", "\\land", "\\wedge", "\\lor", "\\vee", "\\oplus",
+        "\\rightarrow", "\\to", "\\leftrightarrow", "\\equiv",
+    };
+    private static final Kind[] COMMAND_KINDS = {
+        Kind.NEG, Kind.NEG, Kind.AND, Kind.AND, Kind.OR, Kind.OR, Kind.XOR,
+        Kind.IMPLIES, Kind.IMPLIES, Kind.IFF, Kind.EQUIV,
+    };
+
+    private final String source;
+    private int pos = 0;
+    private boolean body = false;
+    // Parentheses and negations around the current atom
+    private int depth = 0;
+
+    // Current token
+    private Kind kind;
+    private int start;
+
+    private FastParser(CharSequence source) {
+        this.source = source.toString();
+    }
+
+    /**
+     * Parses a proof, or returns null if the ANTLR parser should parse it.
+     */
+    public static Proof parse(CharSequence source) {
+        try {
+            return new FastParser(source).root();
+        } catch (Rejected | NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private Proof root() throws Rejected {
+        next();
+        List<String> atomics = new ArrayList<>();
+        List<Proposition> givens = new ArrayList<>();
+        while (kind != Kind.START && kind != Kind.STARTEQUIV) {
+            if (kind == Kind.LET) {
+                next();
+                atomics.add(text(Kind.ID));
+                expect(Kind.BE);
+                expect(Kind.A);
+                expect(Kind.PROPOSITION);
+            } else if (kind == Kind.GIVEN) {
+                next();
+                givens.add(proposition());
+            }
+            expect(Kind.EOL);
+        }
+        if (kind == Kind.START) {
+            next();
+            List<Line> lines = proofBody();
+            return new Proof(false, new Declarations(atomics, givens).freeze(), lines);
+        } else {
+            next();
+            List<Line> lines = equivBody();
+            var given = Collections.singleton(lines.get(0).proposition);
+            return new Proof(true, new Declarations(atomics, given), lines);
+        }
+    }
+
+    private List<Line> proofBody() throws Rejected {
+        List<Line> lines = new ArrayList<>();
+        while (kind != Kind.EOF) {
+            if (kind != Kind.EOL) {
+                Number number = number();
+                Proposition proposition = proposition();
+                lines.add(new Line(number, proposition, ruleRef()));
+            }
+            expect(Kind.EOL);
+        }
+        return Collections.unmodifiableList(lines);
+    }
+
+    private List<Line> equivBody() throws Rejected {
+        List<Line> lines = new ArrayList<>();
+        while (kind == Kind.EOL)
+            next();
+        int number = 1;
+        lines.add(new Line(new Number(List.of(number)), proposition(), new Rule("given", List.of())));
+        number++;
+        while (kind != Kind.EOF) {
+            if (kind == Kind.EQUIV) {
+                next();
+                Proposition proposition = proposition();
+                expect(Kind.LBRACKET);
+                String name = ruleName();
+                expect(Kind.RBRACKET);
+                var ref = List.of(new Number(List.of(number - 1)));
+                lines.add(new Line(new Number(List.of(number)), proposition, new Rule(name, ref)));
+                number++;
+            }
+            expect(Kind.EOL);
+        }
+        return Collections.unmodifiableList(lines);
+    }
+
+    private Number number() throws Rejected {
+        List<Integer> parts = new ArrayList<>();
+        parts.add(Integer.parseInt(text(Kind.POSINT)));
+        // The last dot is optional
+        while (kind == Kind.DOT) {
+            next();
+            if (kind != Kind.POSINT)
+                break;
+            parts.add(Integer.parseInt(text(Kind.POSINT)));
+        }
+        return new Number(parts);
+    }
+
+    private Rule ruleRef() throws Rejected {
+        expect(Kind.LBRACKET);
+        String name = ruleName();
+        List<Number> refs = new ArrayList<>();
+        if (kind == Kind.COLON) {
+            next();
+            refs.add(number());
+            while (kind == Kind.COMMA) {
+                next();
+                refs.add(number());
+            }
+        }
+        expect(Kind.RBRACKET);
+        return new Rule(name, refs);
+    }
+
+    private String ruleName() throws Rejected {
+        StringBuilder name = new StringBuilder(text(Kind.ID));
+        while (kind == Kind.ID)
+            name.append(' ').append(text(Kind.ID));
+        switch (kind) {
+            case NEG: case AND: case OR: case XOR: case IMPLIES: case IFF:
+                String op = source.substring(start, pos);
+                name.append(' ').append(ASTBuilder.OPERATORS.getOrDefault(op, op));
+                next();
+                break;
+            default:
+                break;
+        }
+        return name.toString();
+    }
+
+    private Proposition proposition() throws Rejected {
+        Proposition lhs = sum();
+        if (kind == Kind.IMPLIES) {
+            next();
+            return Proposition.implies(lhs, sum());
+        }
+        if (kind == Kind.IFF) {
+            next();
+            return Proposition.biconditional(lhs, sum());
+        }
+        return lhs;
+    }
+
+    private Proposition sum() throws Rejected {
+        Proposition value = xor();
+        while (kind == Kind.OR) {
+            next();
+            value = Proposition.or(value, xor());
+        }
+        return value;
+    }
+
+    private Proposition xor() throws Rejected {
+        Proposition value = product();
+        while (kind == Kind.XOR) {
+            next();
+            value = Proposition.xor(value, product());
+        }
+        return value;
+    }
+
+    private Proposition product() throws Rejected {
+        Proposition value = atom();
+        while (kind == Kind.AND) {
+            next();
+            value = Proposition.and(value, atom());
+        }
+        return value;
+    }
+
+    private Proposition atom() throws Rejected {
+        int negations = 0;
+        while (kind == Kind.NEG) {
+            negations++;
+            next();
+        }
+        Proposition value;
+        if (kind == Kind.LPAREN) {
+            if (depth + negations + 1 > ASTBuilder.MAX_DEPTH)
+                throw Rejected.INSTANCE;
+            depth += negations + 1;
+            next();
+            value = proposition();
+            expect(Kind.RPAREN);
+            depth -= negations + 1;
+        } else {
+            if (depth + negations > ASTBuilder.MAX_DEPTH)
+                throw Rejected.INSTANCE;
+            String name = text(Kind.ID);
+            if (name.equals("T"))
+                value = Proposition.TRUE;
+            else if (name.equals("F"))
+                value = Proposition.FALSE;
+            else
+                value = Proposition.atomic(name);
+        }
+        for (int i = 0; i < negations; i++)
+            value = Proposition.not(value);
+        return value;
+    }
+
+    private void expect(Kind expected) throws Rejected {
+        if (kind != expected)
+            throw Rejected.INSTANCE;
+        next();
+    }
+
+    /**
+     * Returns the text of the current token, which must be of kind
+     * `expected`, and moves to the next token.
+     */
+    private String text(Kind expected) throws Rejected {
+        if (kind != expected)
+            throw Rejected.INSTANCE;
+        String text = source.substring(start, pos);
+        next();
+        return text;
+    }
+
+    /**
+     * Reads the next token.
+     */
+    private void next() throws Rejected {
+        int length = source.length();
+        while (true) {
+            start = pos;
+            if (pos == length) {
+                kind = Kind.EOF;
+                return;
+            }
+            char c = source.charAt(pos);
+            switch (c) {
+                case ' ': case '\t': case '\r':
+                    pos++;
+                    continue;
+                case '#':
+                    skipLine();
+                    continue;
+                case '/':
+                    if (source.startsWith("//", pos)) {
+                        skipLine();
+                        continue;
+                    }
+                    if (source.startsWith("/*", pos)) {
+                        int end = source.indexOf("*/", pos + 2);
+                        pos = end < 0 ? length : end + 2;
+                        continue;
+                    }
+                    throw Rejected.INSTANCE;
+                case '\n': token(Kind.EOL, 1); return;
+                case '(': token(Kind.LPAREN, 1); return;
+                case ')': token(Kind.RPAREN, 1); return;
+                case '¬': token(Kind.NEG, 1); return;
+                case '∧': token(Kind.AND, 1); return;
+                case '∨': token(Kind.OR, 1); return;
+                case '⊕': token(Kind.XOR, 1); return;
+                case '→': token(Kind.IMPLIES, 1); return;
+                case '↔': token(Kind.IFF, 1); return;
+                case '≡': case '=': token(Kind.EQUIV, 1); return;
+                case '\\':
+                    command();
+                    return;
+                default:
+                    break;
+            }
+            if (isIdStart(c)) {
+                identifier();
+                return;
+            }
+            if (!body)
+                throw Rejected.INSTANCE;
+            switch (c) {
+                case '.': token(Kind.DOT, 1); return;
+                case ',': token(Kind.COMMA, 1); return;
+                case ':': token(Kind.COLON, 1); return;
+                case '[': token(Kind.LBRACKET, 1); return;
+                case ']': token(Kind.RBRACKET, 1); return;
+                default:
+                    break;
+            }
+            if (c < '1' || c > '9')
+                throw Rejected.INSTANCE;
+            int end = pos + 1;
+            while (end < length && source.charAt(end) >= '0' && source.charAt(end) <= '9')
+                end++;
+            token(Kind.POSINT, end - pos);
+            return;
+        }
+    }
+
+    private void token(Kind kind, int length) {
+        this.kind = kind;
+        pos += length;
+    }
+
+    /**
+     * Skips a single-line comment and the end of its line.
+     */
+    private void skipLine() {
+        int end = source.indexOf('\n', pos);
+        pos = end < 0 ? source.length() : end + 1;
+    }
+
+    private void command() throws Rejected {
+        for (int i = 0; i < COMMANDS.length; i++) {
+            if (source.startsWith(COMMANDS[i], pos)) {
+                token(COMMAND_KINDS[i], COMMANDS[i].length());
+                return;
+            }
+        }
+        throw Rejected.INSTANCE;
+    }
+
+    private void identifier() {
+        int length = source.length();
+        int end = pos + 1;
+        while (end < length && isIdPart(source.charAt(end)))
+            end++;
+        kind = Kind.ID;
+        if (!body) {
+            // Keywords are as long as the identifier, and take precedence
+            switch (source.substring(pos, end)) {
+                case "given": case "Given": kind = Kind.GIVEN; break;
+                case "let": case "Let": kind = Kind.LET; break;
+                case "be": kind = Kind.BE; break;
+                case "a": kind = Kind.A; break;
+                case "proposition": kind = Kind.PROPOSITION; break;
+                case "proof":
+                    // The start keywords include the dot, and are longer
+                    if (end < length && source.charAt(end) == '.') {
+                        kind = Kind.START;
+                        end++;
+                        body = true;
+                    }
+                    break;
+                case "equivalence":
+                    if (end < length && source.charAt(end) == '.') {
+                        kind = Kind.STARTEQUIV;
+                        end++;
+                        body = true;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        pos = end;
+    }
+
+    private static boolean isIdStart(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_' || c == '\'';
+    }
+
+    private static boolean isIdPart(char c) {
+        return isIdStart(c) || (c >= '0' && c <= '9');
+    }
+}
@@ -0,0 +1,436 @@
+package proofcompiler.semantics;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import proofcompiler.ast.logic.Atomic;
+import proofcompiler.ast.logic.BinaryOp;
+import proofcompiler.ast.logic.Proposition;
+import proofcompiler.ast.logic.UnaryOp;
+
+/**
+ * Reduced ordered binary decision diagrams of propositions.
+ *
+ * A manager owns a set of nodes, referred to by int handles. The unique
+ * table guarantees that every boolean function has exactly one node, so
+ * two propositions are equivalent iff their nodes are the same handle,
+ * and a proposition is a tautology iff its node is `TRUE`.
+ *
+ * Variables are ordered by their first use: the atomic propositions of
+ * the first proposition built come first, in the order of a left-to-right
+ * traversal, which keeps related variables close. Meta variables are
+ * variables too, so rules themselves can be checked.
+ *
+ * Results of operations are remembered in a direct-mapped cache, and the
+ * nodes of propositions and their subterms are remembered by identity,
+ * since propositions are hash-consed: the lines of a proof share most of
+ * their subterms, which are built once. A manager is not thread-safe.
+ */
+public final class Bdd {
+    public static final int FALSE = 0;
+    public static final int TRUE = 1;
+
+    /**
+     * Thrown when building a node would exceed the node bound of the
+     * manager.
+     */
+    public static class LimitException extends Exception {
+        private static final long serialVersionUID = 0;
+
+        LimitException(int maxNodes) {
+            super(String.format("more than %d BDD nodes", maxNodes));
+        }
+    }
+
+    // Operations, also used as keys of the operation cache
+    private static final int AND = 0;
+    private static final int OR = 1;
+    private static final int XOR = 2;
+    private static final int IMPLIES = 3;
+    private static final int IFF = 4;
+    private static final int NOT = 5;
+
+    // Variable of the terminals, below every variable
+    private static final int TERMINAL = Integer.MAX_VALUE;
+    private static final int INITIAL_CAPACITY = 1 << 10;
+    private static final int CACHE_SIZE = 1 << 14;
+
+    private final int maxNodes;
+    // Bound of the nodes of the current build, at most maxNodes
+    private int limit;
+
+    // Nodes, by handle
+    private int[] level;
+    private int[] low;
+    private int[] high;
+    private int size;
+
+    // Unique table: chains of nodes with the same hash
+    private int[] buckets;
+    private int[] next;
+
+    // Operation cache, indexed by the hash of the operation and operands
+    private final int[] cacheOp = new int[CACHE_SIZE];
+    private final int[] cacheA = new int[CACHE_SIZE];
+    private final int[] cacheB = new int[CACHE_SIZE];
+    private final int[] cacheResult = new int[CACHE_SIZE];
+
+    // Work stack of apply: frames of an operation, its operands, their top
+    // variable and the result on its low cofactors, or -1
+    private static final int FRAME = 5;
+    private int[] frames = new int[FRAME * 64];
+    private int top = 0;
+
+    private final Map<Atomic, Integer> variables = new HashMap<>();
+    private final Map<Proposition, Integer> built = new IdentityHashMap<>();
+
+    public Bdd(int maxNodes) {
+        this.maxNodes = maxNodes;
+        this.limit = maxNodes;
+        clear();
+    }
+
+    /**
+     * Drops all the nodes, the variable order and the caches. Handles
+     * returned before are invalid.
+     */
+    public void clear() {
+        level = new int[INITIAL_CAPACITY];
+        low = new int[INITIAL_CAPACITY];
+        high = new int[INITIAL_CAPACITY];
+        buckets = new int[INITIAL_CAPACITY];
+        next = new int[INITIAL_CAPACITY];
+        Arrays.fill(buckets, -1);
+        Arrays.fill(cacheOp, -1);
+        variables.clear();
+        built.clear();
+        size = 0;
+        // The terminals are not in the unique table
+        for (int terminal : new int[]{FALSE, TRUE}) {
+            level[terminal] = TERMINAL;
+            low[terminal] = terminal;
+            high[terminal] = terminal;
+            size++;
+        }
+    }
+
+    /**
+     * Number of nodes, including the terminals.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Number of propositions whose node is remembered.
+     */
+    public int propositions() {
+        return built.size();
+    }
+
+    /**
+     * Returns the node of `prop`, adding at most `maxNewNodes` nodes to
+     * the manager.
+     */
+    public int build(Proposition prop, int maxNewNodes) throws LimitException {
+        int saved = limit;
+        limit = (int) Math.min(limit, (long) size + maxNewNodes);
+        try {
+            return build(prop);
+        } finally {
+            limit = saved;
+        }
+    }
+
+    /**
+     * Returns the node of `prop`.
+     */
+    public int build(Proposition prop) throws LimitException {
+        Integer known = built.get(prop);
+        if (known != null)
+            return known;
+        // Post-order traversal with an explicit stack, for deep propositions
+        Deque<Proposition> stack = new ArrayDeque<>();
+        stack.push(prop);
+        while (!stack.isEmpty()) {
+            Proposition top = stack.peek();
+            if (built.containsKey(top)) {
+                stack.pop();
+                continue;
+            }
+            int node;
+            if (top == Proposition.TRUE) {
+                node = TRUE;
+            } else if (top == Proposition.FALSE) {
+                node = FALSE;
+            } else if (top instanceof Atomic) {
+                node = variable((Atomic) top);
+            } else if (top instanceof UnaryOp) {
+                Integer arg = built.get(((UnaryOp) top).arg);
+                if (arg == null) {
+                    stack.push(((UnaryOp) top).arg);
+                    continue;
+                }
+                node = not(arg);
+            } else {
+                BinaryOp binary = (BinaryOp) top;
+                Integer lhs = built.get(binary.lhs);
+                Integer rhs = built.get(binary.rhs);
+                if (lhs == null || rhs == null) {
+                    // Pushed right first, so that the left operand is built first
+                    if (rhs == null)
+                        stack.push(binary.rhs);
+                    if (lhs == null)
+                        stack.push(binary.lhs);
+                    continue;
+                }
+                node = apply(operation(binary.type), lhs, rhs);
+            }
+            built.put(top, node);
+            stack.pop();
+        }
+        return built.get(prop);
+    }
+
+    /**
+     * Returns the node of the variable `atomic`, which is ordered after
+     * the variables used before.
+     */
+    public int variable(Atomic atomic) throws LimitException {
+        Integer index = variables.get(atomic);
+        if (index == null) {
+            index = variables.size();
+            variables.put(atomic, index);
+        }
+        return node(index, FALSE, TRUE);
+    }
+
+    public int not(int a) throws LimitException {
+        return apply(NOT, a, 0);
+    }
+
+    public int and(int a, int b) throws LimitException {
+        return apply(AND, a, b);
+    }
+
+    public int or(int a, int b) throws LimitException {
+        return apply(OR, a, b);
+    }
+
+    public int xor(int a, int b) throws LimitException {
+        return apply(XOR, a, b);
+    }
+
+    public int implies(int a, int b) throws LimitException {
+        return apply(IMPLIES, a, b);
+    }
+
+    public int iff(int a, int b) throws LimitException {
+        return apply(IFF, a, b);
+    }
+
+    /**
+     * Returns an assignment of the variables making `node` true, or null if
+     * `node` is `FALSE`. Variables missing from the assignment can take any
+     * value.
+     */
+    public Map<Atomic, Boolean> satisfying(int node) {
+        if (node == FALSE)
+            return null;
+        Atomic[] atomics = new Atomic[variables.size()];
+        for (var entry : variables.entrySet())
+            atomics[entry.getValue()] = entry.getKey();
+        Map<Atomic, Boolean> assignment = new HashMap<>();
+        // A node other than FALSE always has a path to TRUE
+        while (node != TRUE) {
+            boolean value = low[node] == FALSE;
+            assignment.put(atomics[level[node]], value);
+            node = value ? high[node] : low[node];
+        }
+        return assignment;
+    }
+
+    /**
+     * Returns the node of `a op b`, or of `¬a` for `NOT`.
+     *
+     * The operation is applied to the cofactors of the operands by each
+     * value of their top variable, then the results are joined. The pairs
+     * of cofactors pending are kept on `frames` rather than the call stack,
+     * so that BDDs with many variables do not overflow it. Tables are only
+     * updated once a node is made, so a `LimitException` leaves them
+     * consistent.
+     */
+    private int apply(int op, int a, int b) throws LimitException {
+        int base = top;
+        try {
+            int result = enter(op, a, b);
+            while (top > base) {
+                int f = top - FRAME;
+                boolean high;
+                if (result < 0) {
+                    // A frame was just pushed
+                    high = false;
+                } else if (frames[f + 4] < 0) {
+                    frames[f + 4] = result;
+                    high = true;
+                } else {
+                    int node = node(frames[f + 3], frames[f + 4], result);
+                    remember(slot(frames[f], frames[f + 1], frames[f + 2]),
+                            frames[f], frames[f + 1], frames[f + 2], node);
+                    top = f;
+                    result = node;
+                    continue;
+                }
+                int v = frames[f + 3];
+                result = enter(frames[f], cofactor(frames[f + 1], v, high), cofactor(frames[f + 2], v, high));
+            }
+            return result;
+        } finally {
+            top = base;
+        }
+    }
+
+    /**
+     * Returns the node of `a op b` if it is immediate or cached. Otherwise
+     * pushes a frame for it and returns -1.
+     */
+    private int enter(int op, int a, int b) throws LimitException {
+        switch (op) {
+            case NOT:
+                if (a <= TRUE) return a ^ 1;
+                break;
+            case AND:
+                if (a == FALSE || b == FALSE) return FALSE;
+                if (a == TRUE) return b;
+                if (b == TRUE || a == b) return a;
+                break;
+            case OR:
+                if (a == TRUE || b == TRUE) return TRUE;
+                if (a == FALSE) return b;
+                if (b == FALSE || a == b) return a;
+                break;
+            case XOR:
+                if (a == b) return FALSE;
+                if (a == FALSE) return b;
+                if (b == FALSE) return a;
+                if (a == TRUE) return not(b);
+                if (b == TRUE) return not(a);
+                break;
+            case IMPLIES:
+                if (a == FALSE || b == TRUE || a == b) return TRUE;
+                if (a == TRUE) return b;
+                if (b == FALSE) return not(a);
+                break;
+            case IFF:
+                if (a == b) return TRUE;
+                if (a == TRUE) return b;
+                if (b == TRUE) return a;
+                if (a == FALSE) return not(b);
+                if (b == FALSE) return not(a);
+                break;
+            default:
+                throw new IllegalArgumentException();
+        }
+        // AND, OR, XOR and IFF are commutative
+        if (op != IMPLIES && op != NOT && a > b) {
+            int t = a;
+            a = b;
+            b = t;
+        }
+        int slot = slot(op, a, b);
+        if (cacheOp[slot] == op && cacheA[slot] == a && cacheB[slot] == b)
+            return cacheResult[slot];
+
+        if (top + FRAME > frames.length)
+            frames = Arrays.copyOf(frames, 2 * frames.length);
+        frames[top] = op;
+        frames[top + 1] = a;
+        frames[top + 2] = b;
+        frames[top + 3] = Math.min(level[a], level[b]);
+        frames[top + 4] = -1;
+        top += FRAME;
+        return -1;
+    }
+
+    /**
+     * Returns the cofactor of `n` by the value `high` of the variable `v`,
+     * which is at or above the top variable of `n`.
+     */
+    private int cofactor(int n, int v, boolean high) {
+        if (level[n] != v)
+            return n;
+        return high ? this.high[n] : low[n];
+    }
+
+    /**
+     * Returns the unique node `if v then high else low`.
+     */
+    private int node(int v, int low, int high) throws LimitException {
+        if (low == high)
+            return low;
+        int bucket = hash(v, low, high) & (buckets.length - 1);
+        for (int n = buckets[bucket]; n >= 0; n = next[n])
+            if (level[n] == v && this.low[n] == low && this.high[n] == high)
+                return n;
+
+        if (size >= limit)
+            throw new LimitException(limit);
+        if (size == level.length) {
+            grow();
+            bucket = hash(v, low, high) & (buckets.length - 1);
+        }
+        int n = size++;
+        level[n] = v;
+        this.low[n] = low;
+        this.high[n] = high;
+        next[n] = buckets[bucket];
+        buckets[bucket] = n;
+        return n;
+    }
+
+    private void grow() {
+        int capacity = level.length * 2;
+        level = Arrays.copyOf(level, capacity);
+        low = Arrays.copyOf(low, capacity);
+        high = Arrays.copyOf(high, capacity);
+        next = new int[capacity];
+        buckets = new int[capacity];
+        Arrays.fill(buckets, -1);
+        for (int n = TRUE + 1; n < size; n++) {
+            int bucket = hash(level[n], low[n], high[n]) & (capacity - 1);
+            next[n] = buckets[bucket];
+            buckets[bucket] = n;
+        }
+    }
+
+    private void remember(int slot, int op, int a, int b, int result) {
+        cacheOp[slot] = op;
+        cacheA[slot] = a;
+        cacheB[slot] = b;
+        cacheResult[slot] = result;
+    }
+
+    private static int slot(int op, int a, int b) {
+        return hash(op, a, b) & (CACHE_SIZE - 1);
+    }
+
+    private static int hash(int x, int y, int z) {
+        int h = x * 0x9E3779B1 + y;
+        h = h * 0x9E3779B1 + z;
+        return h ^ (h >>> 15);
+    }
+
+    private static int operation(BinaryOp.Type type) {
+        switch (type) {
+            case AND: return AND;
+            case OR: return OR;
+            case XOR: return XOR;
+            case IMPLIES: return IMPLIES;
+            case BICONDITIONAL: return IFF;
+            default: throw new IllegalArgumentException(type.toString());
+        }
+    }
+}
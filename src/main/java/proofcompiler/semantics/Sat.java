@@ -0,0 +1,438 @@
+package proofcompiler.semantics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Conflict-driven clause learning SAT solver.
+ *
+ * Variables are numbered from 0, and the literals of variable v are 2v
+ * (positive) and 2v + 1 (negative), so that `lit ^ 1` negates `lit`.
+ *
+ * The solver propagates with two watched literals per clause, learns the
+ * first-UIP clause of each conflict and backjumps to its second highest
+ * level, picks decisions by activity (VSIDS) with saved phases, and
+ * restarts following the Luby sequence. It gives up after a bound on the
+ * number of conflicts. A solver is not thread-safe.
+ */
+public final class Sat {
+    public enum Result { SATISFIABLE, UNSATISFIABLE, UNKNOWN }
+
+    private static final byte TRUE = 1;
+    private static final byte FALSE = -1;
+    private static final byte UNASSIGNED = 0;
+
+    private static final int RESTART_UNIT = 64;
+    private static final double ACTIVITY_DECAY = 0.95;
+    private static final double ACTIVITY_LIMIT = 1e100;
+
+    private int variables = 0;
+    // Original and learnt clauses; each clause of two literals or more
+    // watches its first two
+    private final List<int[]> clauses = new ArrayList<>();
+    private IntVec[] watches = new IntVec[0];
+    // Literals of the unit clauses added before solving
+    private final IntVec units = new IntVec();
+    private boolean empty = false;
+
+    // Assignment
+    private byte[] values = new byte[0];
+    private int[] level = new int[0];
+    private int[] reason = new int[0];
+    private boolean[] phase = new boolean[0];
+    private final IntVec trail = new IntVec();
+    private final IntVec trailLimits = new IntVec();
+    private int propagated = 0;
+
+    // Decision heuristic
+    private double[] activity = new double[0];
+    private double increment = 1;
+    private final VariableHeap heap = new VariableHeap();
+
+    // Scratch of conflict analysis
+    private boolean[] seen = new boolean[0];
+
+    public static int literal(int variable, boolean positive) {
+        return 2 * variable + (positive ? 0 : 1);
+    }
+
+    /**
+     * Adds a variable and returns it.
+     */
+    public int newVariable() {
+        int v = variables++;
+        if (v == values.length / 2) {
+            int capacity = Math.max(16, 2 * variables);
+            values = Arrays.copyOf(values, 2 * capacity);
+            watches = Arrays.copyOf(watches, 2 * capacity);
+            level = Arrays.copyOf(level, capacity);
+            reason = Arrays.copyOf(reason, capacity);
+            phase = Arrays.copyOf(phase, capacity);
+            activity = Arrays.copyOf(activity, capacity);
+            seen = Arrays.copyOf(seen, capacity);
+            heap.grow(capacity);
+        }
+        watches[2 * v] = new IntVec();
+        watches[2 * v + 1] = new IntVec();
+        heap.insert(v);
+        return v;
+    }
+
+    public int variables() {
+        return variables;
+    }
+
+    /**
+     * Adds a clause, the disjunction of `literals`. Clauses are added
+     * before solving.
+     */
+    public void addClause(int... literals) {
+        int[] clause = literals.clone();
+        Arrays.sort(clause);
+        int size = 0;
+        for (int i = 0; i < clause.length; i++) {
+            if (size > 0 && clause[i] == clause[size - 1])
+                continue;
+            // Sorted, so a literal and its negation are adjacent
+            if (size > 0 && clause[i] == (clause[size - 1] ^ 1))
+                return;
+            clause[size++] = clause[i];
+        }
+        if (size == 0) {
+            empty = true;
+        } else if (size == 1) {
+            units.push(clause[0]);
+        } else {
+            attach(Arrays.copyOf(clause, size));
+        }
+    }
+
+    /**
+     * Decides whether the clauses are satisfiable, giving up after
+     * `maxConflicts` conflicts. The model of a satisfiable problem is then
+     * available through `value`.
+     */
+    public Result solve(long maxConflicts) {
+        if (empty)
+            return Result.UNSATISFIABLE;
+        cancelUntil(0);
+        for (int i = 0; i < units.size; i++) {
+            int lit = units.data[i];
+            if (valueOf(lit) == FALSE)
+                return Result.UNSATISFIABLE;
+            if (valueOf(lit) == UNASSIGNED)
+                assign(lit, -1);
+        }
+
+        long conflicts = 0;
+        int restarts = 0;
+        long restartAt = luby(restarts) * RESTART_UNIT;
+        while (true) {
+            int conflict = propagate();
+            if (conflict >= 0) {
+                conflicts++;
+                if (decisionLevel() == 0)
+                    return Result.UNSATISFIABLE;
+                learn(conflict);
+                continue;
+            }
+            if (conflicts >= maxConflicts)
+                return Result.UNKNOWN;
+            if (conflicts >= restartAt) {
+                cancelUntil(0);
+                restarts++;
+                restartAt = conflicts + luby(restarts) * RESTART_UNIT;
+            }
+            int v = pickBranchVariable();
+            if (v < 0)
+                return Result.SATISFIABLE;
+            trailLimits.push(trail.size);
+            assign(literal(v, phase[v]), -1);
+        }
+    }
+
+    /**
+     * Value of `variable` in the model found by the last `solve`.
+     */
+    public boolean value(int variable) {
+        return values[2 * variable] == TRUE;
+    }
+
+    private void attach(int[] clause) {
+        int index = clauses.size();
+        clauses.add(clause);
+        watches[clause[0]].push(index);
+        watches[clause[1]].push(index);
+    }
+
+    private byte valueOf(int lit) {
+        return values[lit];
+    }
+
+    private void assign(int lit, int from) {
+        int v = lit >> 1;
+        values[lit] = TRUE;
+        values[lit ^ 1] = FALSE;
+        level[v] = decisionLevel();
+        reason[v] = from;
+        trail.push(lit);
+    }
+
+    private int decisionLevel() {
+        return trailLimits.size;
+    }
+
+    /**
+     * Propagates the assignments on the trail. Returns the index of a
+     * falsified clause, or -1.
+     */
+    private int propagate() {
+        while (propagated < trail.size) {
+            int falsified = trail.data[propagated++] ^ 1;
+            IntVec watching = watches[falsified];
+            int[] ws = watching.data;
+            int i = 0;
+            int j = 0;
+            int n = watching.size;
+            while (i < n) {
+                int index = ws[i++];
+                int[] clause = clauses.get(index);
+                // The falsified literal goes second
+                if (clause[0] == falsified) {
+                    clause[0] = clause[1];
+                    clause[1] = falsified;
+                }
+                if (values[clause[0]] == TRUE) {
+                    ws[j++] = index;
+                    continue;
+                }
+                boolean moved = false;
+                for (int k = 2; k < clause.length; k++) {
+                    if (values[clause[k]] != FALSE) {
+                        clause[1] = clause[k];
+                        clause[k] = falsified;
+                        watches[clause[1]].push(index);
+                        moved = true;
+                        break;
+                    }
+                }
+                if (moved)
+                    continue;
+                ws[j++] = index;
+                if (values[clause[0]] == FALSE) {
+                    while (i < n)
+                        ws[j++] = ws[i++];
+                    watching.size = j;
+                    propagated = trail.size;
+                    return index;
+                }
+                assign(clause[0], index);
+            }
+            watching.size = j;
+        }
+        return -1;
+    }
+
+    /**
+     * Learns the first-UIP clause of `conflict`, backjumps, and asserts the
+     * clause.
+     */
+    private void learn(int conflict) {
+        IntVec learnt = new IntVec();
+        learnt.push(-1);
+        int paths = 0;
+        int lit = -1;
+        int index = trail.size - 1;
+        int[] clause = clauses.get(conflict);
+        while (true) {
+            // The first literal of a reason is the one it implied
+            for (int k = lit < 0 ? 0 : 1; k < clause.length; k++) {
+                int q = clause[k];
+                int v = q >> 1;
+                if (!seen[v] && level[v] > 0) {
+                    bump(v);
+                    seen[v] = true;
+                    if (level[v] >= decisionLevel())
+                        paths++;
+                    else
+                        learnt.push(q);
+                }
+            }
+            while (!seen[trail.data[index] >> 1])
+                index--;
+            lit = trail.data[index--];
+            seen[lit >> 1] = false;
+            if (--paths == 0)
+                break;
+            clause = clauses.get(reason[lit >> 1]);
+        }
+        learnt.data[0] = lit ^ 1;
+        for (int k = 1; k < learnt.size; k++)
+            seen[learnt.data[k] >> 1] = false;
+
+        // Backjump to the highest level of the other literals, which goes
+        // second to be watched
+        int backjump = 0;
+        for (int k = 1; k < learnt.size; k++) {
+            int v = learnt.data[k] >> 1;
+            if (level[v] > backjump) {
+                backjump = level[v];
+                int t = learnt.data[1];
+                learnt.data[1] = learnt.data[k];
+                learnt.data[k] = t;
+            }
+        }
+        cancelUntil(backjump);
+        if (learnt.size == 1) {
+            assign(learnt.data[0], -1);
+        } else {
+            attach(Arrays.copyOf(learnt.data, learnt.size));
+            assign(learnt.data[0], clauses.size() - 1);
+        }
+        increment /= ACTIVITY_DECAY;
+    }
+
+    private void cancelUntil(int target) {
+        if (decisionLevel() <= target)
+            return;
+        int start = trailLimits.data[target];
+        for (int i = trail.size - 1; i >= start; i--) {
+            int lit = trail.data[i];
+            int v = lit >> 1;
+            values[lit] = UNASSIGNED;
+            values[lit ^ 1] = UNASSIGNED;
+            phase[v] = (lit & 1) == 0;
+            if (!heap.contains(v))
+                heap.insert(v);
+        }
+        trail.size = start;
+        trailLimits.size = target;
+        propagated = start;
+    }
+
+    private int pickBranchVariable() {
+        while (!heap.isEmpty()) {
+            int v = heap.removeMax();
+            if (values[2 * v] == UNASSIGNED)
+                return v;
+        }
+        return -1;
+    }
+
+    private void bump(int v) {
+        activity[v] += increment;
+        if (activity[v] > ACTIVITY_LIMIT) {
+            for (int u = 0; u < variables; u++)
+                activity[u] /= ACTIVITY_LIMIT;
+            increment /= ACTIVITY_LIMIT;
+        }
+        if (heap.contains(v))
+            heap.increased(v);
+    }
+
+    /**
+     * Term `i` of the Luby sequence 1, 1, 2, 1, 1, 2, 4, ...
+     */
+    private static long luby(int i) {
+        int size = 1;
+        int exponent = 0;
+        while (size < i + 1) {
+            size = 2 * size + 1;
+            exponent++;
+        }
+        while (size - 1 != i) {
+            size = (size - 1) / 2;
+            exponent--;
+            i = i % size;
+        }
+        return 1L << exponent;
+    }
+
+    private static final class IntVec {
+        int[] data = new int[4];
+        int size = 0;
+
+        void push(int x) {
+            if (size == data.length)
+                data = Arrays.copyOf(data, 2 * size);
+            data[size++] = x;
+        }
+    }
+
+    /**
+     * Max-heap of variables by activity.
+     */
+    private final class VariableHeap {
+        private int[] heap = new int[0];
+        // Position of each variable in the heap, or -1
+        private int[] positions = new int[0];
+        private int size = 0;
+
+        void grow(int capacity) {
+            heap = Arrays.copyOf(heap, capacity);
+            int old = positions.length;
+            positions = Arrays.copyOf(positions, capacity);
+            Arrays.fill(positions, old, capacity, -1);
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        boolean contains(int v) {
+            return positions[v] >= 0;
+        }
+
+        void insert(int v) {
+            heap[size] = v;
+            positions[v] = size;
+            up(size++);
+        }
+
+        void increased(int v) {
+            up(positions[v]);
+        }
+
+        int removeMax() {
+            int max = heap[0];
+            positions[max] = -1;
+            if (--size > 0) {
+                heap[0] = heap[size];
+                positions[heap[0]] = 0;
+                down(0);
+            }
+            return max;
+        }
+
+        private void up(int i) {
+            int v = heap[i];
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (activity[heap[parent]] >= activity[v])
+                    break;
+                heap[i] = heap[parent];
+                positions[heap[i]] = i;
+                i = parent;
+            }
+            heap[i] = v;
+            positions[v] = i;
+        }
+
+        private void down(int i) {
+            int v = heap[i];
+            while (2 * i + 1 < size) {
+                int child = 2 * i + 1;
+                if (child + 1 < size && activity[heap[child + 1]] > activity[heap[child]])
+                    child++;
+                if (activity[heap[child]] <= activity[v])
+                    break;
+                heap[i] = heap[child];
+                positions[heap[i]] = i;
+                i = child;
+            }
+            heap[i] = v;
+            positions[v] = i;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package proofcompiler.semantics;
+
+import java.util.Collection;
+import proofcompiler.ast.logic.Proposition;
+
+/**
+ * Semantic questions about propositions, decided on BDDs, or by SAT for
+ * entailment.
+ *
+ * Each thread has its own BDD manager, kept across questions so that the
+ * subterms shared by the lines of a proof are built once. Questions whose
+ * BDDs grow over a bound are left undecided.
+ */
+public final class Semantics {
+    private Semantics() {}
+
+    public enum Verdict { YES, NO, UNKNOWN }
+
+    // Bound of the nodes of a manager
+    private static final int MAX_NODES = 1 << 18;
+    // Above this many nodes or propositions, the manager is cleared before
+    // the next question, which bounds the memory it retains
+    private static final int RETAINED = 1 << 16;
+
+    // Bound of the conflicts of one SAT question
+    private static final long MAX_CONFLICTS = 100_000;
+
+    private static final ThreadLocal<Bdd> LOCAL = ThreadLocal.withInitial(() -> new Bdd(MAX_NODES));
+
+    /**
+     * Whether `lhs` and `rhs` are logically equivalent.
+     */
+    public static Verdict equivalent(Proposition lhs, Proposition rhs) {
+        return equivalent(lhs, rhs, MAX_NODES);
+    }
+
+    /**
+     * Whether `lhs` and `rhs` are logically equivalent, left undecided if
+     * their BDDs need more than `maxNodes` nodes the manager lacks.
+     */
+    public static Verdict equivalent(Proposition lhs, Proposition rhs, int maxNodes) {
+        Bdd bdd = bdd();
+        try {
+            int start = bdd.size();
+            int l = bdd.build(lhs, maxNodes);
+            int r = bdd.build(rhs, maxNodes - (bdd.size() - start));
+            return l == r ? Verdict.YES : Verdict.NO;
+        } catch (Bdd.LimitException e) {
+            // The manager is still consistent, and cleared before the next
+            // question if it is too large
+            return Verdict.UNKNOWN;
+        }
+    }
+
+    /**
+     * Whether `prop` is true under every assignment.
+     */
+    public static Verdict tautology(Proposition prop) {
+        Bdd bdd = bdd();
+        try {
+            return bdd.build(prop) == Bdd.TRUE ? Verdict.YES : Verdict.NO;
+        } catch (Bdd.LimitException e) {
+            // The manager is still consistent, and cleared before the next
+            // question if it is too large
+            return Verdict.UNKNOWN;
+        }
+    }
+
+    /**
+     * Whether `conclusion` is true under every assignment making all the
+     * `premises` true.
+     *
+     * Premises and conclusions of inference lines are not rewritings of
+     * each other, and may have too many atoms for BDDs, so this is decided
+     * by SAT: the premises entail the conclusion iff the premises and the
+     * negation of the conclusion are unsatisfiable.
+     */
+    public static Verdict entails(Collection<Proposition> premises, Proposition conclusion) {
+        return entails(premises, conclusion, MAX_CONFLICTS);
+    }
+
+    /**
+     * Whether `premises` entail `conclusion`, left undecided after
+     * `maxConflicts` conflicts.
+     */
+    public static Verdict entails(Collection<Proposition> premises, Proposition conclusion, long maxConflicts) {
+        var solver = new Sat();
+        var encoding = new Tseitin(solver);
+        for (Proposition premise : premises)
+            solver.addClause(encoding.encode(premise));
+        solver.addClause(encoding.encode(conclusion) ^ 1);
+        switch (solver.solve(maxConflicts)) {
+            case UNSATISFIABLE:
+                return Verdict.YES;
+            case SATISFIABLE:
+                return Verdict.NO;
+            default:
+                return Verdict.UNKNOWN;
+        }
+    }
+
+    private static Bdd bdd() {
+        Bdd bdd = LOCAL.get();
+        if (bdd.size() > RETAINED || bdd.propositions() > RETAINED)
+            bdd.clear();
+        return bdd;
+    }
+}
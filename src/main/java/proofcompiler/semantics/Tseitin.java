@@ -0,0 +1,153 @@
+package proofcompiler.semantics;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import proofcompiler.ast.logic.Atomic;
+import proofcompiler.ast.logic.BinaryOp;
+import proofcompiler.ast.logic.Proposition;
+import proofcompiler.ast.logic.UnaryOp;
+
+/**
+ * Tseitin encoding of propositions into the clauses of a `Sat` solver.
+ *
+ * Each atomic proposition gets a variable, and each binary operator a
+ * variable defined by clauses to be equivalent to the operator applied to
+ * its operands, so the encoding is linear in the size of the proposition.
+ * Negations are literals of their operand, and subterms shared by
+ * hash-consing are encoded once.
+ */
+public final class Tseitin {
+    private final Sat solver;
+    private final Map<Atomic, Integer> atoms = new HashMap<>();
+    private final Map<Proposition, Integer> encoded = new IdentityHashMap<>();
+    // Literal that is always true, created on first use
+    private int truth = -1;
+
+    public Tseitin(Sat solver) {
+        this.solver = solver;
+    }
+
+    /**
+     * Returns a literal equivalent to `prop`.
+     */
+    public int encode(Proposition prop) {
+        // Post-order traversal with an explicit stack, for deep propositions
+        Deque<Proposition> stack = new ArrayDeque<>();
+        stack.push(prop);
+        while (!stack.isEmpty()) {
+            Proposition top = stack.peek();
+            if (encoded.containsKey(top)) {
+                stack.pop();
+                continue;
+            }
+            int lit;
+            if (top == Proposition.TRUE) {
+                lit = truth();
+            } else if (top == Proposition.FALSE) {
+                lit = truth() ^ 1;
+            } else if (top instanceof Atomic) {
+                Integer v = atoms.get(top);
+                if (v == null) {
+                    v = solver.newVariable();
+                    atoms.put((Atomic) top, v);
+                }
+                lit = Sat.literal(v, true);
+            } else if (top instanceof UnaryOp) {
+                Integer arg = encoded.get(((UnaryOp) top).arg);
+                if (arg == null) {
+                    stack.push(((UnaryOp) top).arg);
+                    continue;
+                }
+                lit = arg ^ 1;
+            } else {
+                BinaryOp binary = (BinaryOp) top;
+                Integer lhs = encoded.get(binary.lhs);
+                Integer rhs = encoded.get(binary.rhs);
+                if (lhs == null || rhs == null) {
+                    if (rhs == null)
+                        stack.push(binary.rhs);
+                    if (lhs == null)
+                        stack.push(binary.lhs);
+                    continue;
+                }
+                lit = define(binary.type, lhs, rhs);
+            }
+            encoded.put(top, lit);
+            stack.pop();
+        }
+        return encoded.get(prop);
+    }
+
+    /**
+     * Value of `atomic` in the model found by the solver, or null if it
+     * does not occur in the encoded propositions.
+     */
+    public Boolean value(Atomic atomic) {
+        Integer v = atoms.get(atomic);
+        return v == null ? null : solver.value(v);
+    }
+
+    /**
+     * The atomic propositions encoded so far, with their value in the
+     * model found by the solver.
+     */
+    public Map<Atomic, Boolean> model() {
+        Map<Atomic, Boolean> model = new HashMap<>();
+        for (var atom : atoms.entrySet())
+            model.put(atom.getKey(), solver.value(atom.getValue()));
+        return model;
+    }
+
+    private int truth() {
+        if (truth < 0) {
+            truth = Sat.literal(solver.newVariable(), true);
+            solver.addClause(truth);
+        }
+        return truth;
+    }
+
+    /**
+     * Returns a new literal `x` with clauses for `x ↔ a op b`.
+     */
+    private int define(BinaryOp.Type type, int a, int b) {
+        int x = Sat.literal(solver.newVariable(), true);
+        int nx = x ^ 1;
+        int na = a ^ 1;
+        int nb = b ^ 1;
+        switch (type) {
+            case AND:
+                solver.addClause(nx, a);
+                solver.addClause(nx, b);
+                solver.addClause(x, na, nb);
+                break;
+            case OR:
+                solver.addClause(x, na);
+                solver.addClause(x, nb);
+                solver.addClause(nx, a, b);
+                break;
+            case XOR:
+                solver.addClause(nx, a, b);
+                solver.addClause(nx, na, nb);
+                solver.addClause(x, na, b);
+                solver.addClause(x, a, nb);
+                break;
+            case IMPLIES:
+                solver.addClause(x, a);
+                solver.addClause(x, nb);
+                solver.addClause(nx, na, b);
+                break;
+            case BICONDITIONAL:
+                solver.addClause(x, a, b);
+                solver.addClause(x, na, nb);
+                solver.addClause(nx, na, b);
+                solver.addClause(nx, a, nb);
+                break;
+            default:
+                throw new IllegalArgumentException(type.toString());
+        }
+        return x;
+    }
+}
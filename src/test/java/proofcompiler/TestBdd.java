@@ -0,0 +1,188 @@
+package proofcompiler;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import proofcompiler.ast.logic.Atomic;
+import proofcompiler.ast.logic.BinaryOp;
+import proofcompiler.ast.logic.Proposition;
+import proofcompiler.ast.logic.UnaryOp;
+import proofcompiler.graph.Rules;
+import proofcompiler.semantics.Bdd;
+import proofcompiler.semantics.Semantics;
+import static proofcompiler.ast.logic.Proposition.atomic;
+import static proofcompiler.ast.logic.Proposition.not;
+import static proofcompiler.ast.logic.Proposition.and;
+import static proofcompiler.ast.logic.Proposition.or;
+import static proofcompiler.ast.logic.Proposition.xor;
+import static proofcompiler.ast.logic.Proposition.implies;
+import static proofcompiler.ast.logic.Proposition.biconditional;
+
+public class TestBdd {
+    private static final Proposition p = atomic("p");
+    private static final Proposition q = atomic("q");
+    private static final Proposition r = atomic("r");
+
+    private static boolean evaluate(Proposition prop, Map<Atomic, Boolean> assignment) {
+        if (prop == Proposition.TRUE)
+            return true;
+        if (prop == Proposition.FALSE)
+            return false;
+        if (prop instanceof Atomic)
+            return assignment.getOrDefault(prop, false);
+        if (prop instanceof UnaryOp)
+            return !evaluate(((UnaryOp) prop).arg, assignment);
+        BinaryOp binary = (BinaryOp) prop;
+        boolean lhs = evaluate(binary.lhs, assignment);
+        boolean rhs = evaluate(binary.rhs, assignment);
+        switch (binary.type) {
+            case AND: return lhs && rhs;
+            case OR: return lhs || rhs;
+            case XOR: return lhs != rhs;
+            case IMPLIES: return !lhs || rhs;
+            default: return lhs == rhs;
+        }
+    }
+
+    private static Proposition random(Random random, List<Proposition> atoms, int depth) {
+        if (depth == 0 || random.nextInt(4) == 0) {
+            int i = random.nextInt(atoms.size() + 2);
+            return i < atoms.size() ? atoms.get(i) : i == atoms.size() ? Proposition.TRUE : Proposition.FALSE;
+        }
+        Proposition lhs = random(random, atoms, depth - 1);
+        switch (random.nextInt(6)) {
+            case 0: return not(lhs);
+            case 1: return and(lhs, random(random, atoms, depth - 1));
+            case 2: return or(lhs, random(random, atoms, depth - 1));
+            case 3: return xor(lhs, random(random, atoms, depth - 1));
+            case 4: return implies(lhs, random(random, atoms, depth - 1));
+            default: return biconditional(lhs, random(random, atoms, depth - 1));
+        }
+    }
+
+    @Test
+    public void testCanonical() throws Exception {
+        var bdd = new Bdd(1 << 16);
+        assertEquals(bdd.build(and(p, q)), bdd.build(and(q, p)));
+        assertEquals(bdd.build(xor(p, q)), bdd.build(or(and(p, not(q)), and(not(p), q))));
+        assertEquals(bdd.build(not(or(p, q))), bdd.build(and(not(p), not(q))));
+        assertEquals(Bdd.TRUE, bdd.build(or(p, not(p))));
+        assertEquals(Bdd.FALSE, bdd.build(and(p, not(p))));
+        assertEquals(Bdd.TRUE, bdd.build(implies(and(p, implies(p, q)), q)));
+        assertNotEquals(bdd.build(implies(p, q)), bdd.build(implies(q, p)));
+        assertNotEquals(Bdd.TRUE, bdd.build(or(p, q)));
+    }
+
+    @Test
+    public void testRandom() throws Exception {
+        // Differential test against truth tables
+        var bdd = new Bdd(1 << 20);
+        List<Proposition> atoms = List.of(p, q, r, atomic("s"));
+        Random random = new Random(0);
+        for (int i = 0; i < 500; i++) {
+            Proposition a = random(random, atoms, 5);
+            Proposition b = random(random, atoms, 5);
+            boolean equivalent = true;
+            for (int bits = 0; bits < 16; bits++) {
+                Map<Atomic, Boolean> assignment = new HashMap<>();
+                for (int j = 0; j < atoms.size(); j++)
+                    assignment.put((Atomic) atoms.get(j), (bits >> j & 1) != 0);
+                equivalent &= evaluate(a, assignment) == evaluate(b, assignment);
+            }
+            int node = bdd.build(xor(a, b));
+            assertEquals(a + " ≡ " + b, equivalent, bdd.build(a) == bdd.build(b));
+            assertEquals(equivalent, node == Bdd.FALSE);
+            // A counterexample distinguishes the two sides
+            var assignment = bdd.satisfying(node);
+            if (equivalent)
+                assertNull(assignment);
+            else
+                assertNotEquals(evaluate(a, assignment), evaluate(b, assignment));
+        }
+    }
+
+    @Test
+    public void testRulesAreSound() throws Exception {
+        // Meta variables are variables, so each rule is a tautology
+        var bdd = new Bdd(1 << 16);
+        for (var rule : Rules.equivalences().entrySet())
+            for (Proposition equivalence : rule.getValue().equivalences())
+                assertEquals(rule.getKey() + ": " + equivalence, Bdd.TRUE, bdd.build(equivalence));
+        for (var rule : Rules.inferences().entrySet()) {
+            Proposition antecedents = Proposition.TRUE;
+            for (Proposition antecedent : rule.getValue().antecedents())
+                antecedents = and(antecedents, antecedent);
+            for (Proposition consequent : rule.getValue().consequents())
+                assertEquals(rule.getKey(), Bdd.TRUE, bdd.build(implies(antecedents, consequent)));
+        }
+    }
+
+    @Test
+    public void testDeep() throws Exception {
+        Proposition prop = p;
+        for (int i = 0; i < 100000; i++)
+            prop = not(and(prop, q));
+        assertEquals(Semantics.Verdict.NO, Semantics.equivalent(prop, not(prop)));
+        assertEquals(Semantics.Verdict.YES, Semantics.equivalent(prop, not(not(prop))));
+    }
+
+    @Test
+    public void testManyVariables() throws Exception {
+        // The negation goes down a chain of 50000 variables
+        Proposition prop = atomic("x50000");
+        for (int i = 49999; i >= 0; i--)
+            prop = and(atomic("x" + i), prop);
+        assertEquals(Semantics.Verdict.YES, Semantics.tautology(or(prop, not(prop))));
+        assertEquals(Semantics.Verdict.NO, Semantics.equivalent(prop, not(prop)));
+    }
+
+    /**
+     * Returns `(x1 ∧ y1) ∨ ... ∨ (xn ∧ yn)` preceded by a conjunction of
+     * the xs, so that the xs are ordered first and the BDD is exponential.
+     */
+    private static Proposition badlyOrdered(int n) {
+        Proposition xs = Proposition.TRUE;
+        Proposition pairs = Proposition.FALSE;
+        for (int i = 0; i < n; i++) {
+            xs = and(xs, atomic("x" + i));
+            pairs = or(pairs, and(atomic("x" + i), atomic("y" + i)));
+        }
+        return or(and(xs, Proposition.FALSE), pairs);
+    }
+
+    @Test(expected = Bdd.LimitException.class)
+    public void testLimit() throws Exception {
+        new Bdd(1000).build(badlyOrdered(16));
+    }
+
+    @Test
+    public void testBuildLimit() throws Exception {
+        var bdd = new Bdd(1 << 20);
+        try {
+            bdd.build(badlyOrdered(16), 1000);
+            fail();
+        } catch (Bdd.LimitException e) {
+            // The bound only applies to that build
+        }
+        assertEquals(Bdd.FALSE, bdd.build(and(p, not(p))));
+        assertEquals(Semantics.Verdict.UNKNOWN, Semantics.equivalent(badlyOrdered(16), p, 1000));
+        assertEquals(Semantics.Verdict.NO, Semantics.equivalent(badlyOrdered(16), p));
+    }
+
+    @Test
+    public void testUnknown() {
+        Proposition prop = badlyOrdered(24);
+        assertEquals(Semantics.Verdict.UNKNOWN, Semantics.tautology(prop));
+        // The manager is usable afterwards
+        assertEquals(Semantics.Verdict.YES, Semantics.tautology(or(p, not(p))));
+    }
+}
@@ -0,0 +1,127 @@
+package proofcompiler;
+
+import org.junit.Test;
+import org.junit.Rule;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class TestCache {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<Path> entries(Path dir) throws Exception {
+        try (var paths = Files.walk(dir)) {
+            return paths.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        var cache = new Cache(folder.getRoot().toPath(), 1 << 20);
+        assertNull(cache.get(bytes("a")));
+        cache.put(bytes("a"), new Cache.Entry("output ∧", null));
+        cache.put(bytes("b"), new Cache.Entry(null, "Parser Error"));
+        assertEquals("output ∧", cache.get(bytes("a")).output);
+        assertNull(cache.get(bytes("a")).error);
+        assertEquals("Parser Error", cache.get(bytes("b")).error);
+        assertNull(cache.get(bytes("c")));
+
+        // Entries persist
+        var reopened = new Cache(folder.getRoot().toPath(), 1 << 20);
+        assertEquals("output ∧", reopened.get(bytes("a")).output);
+    }
+
+    @Test
+    public void testDamaged() throws Exception {
+        var cache = new Cache(folder.getRoot().toPath(), 1 << 20);
+        cache.put(bytes("a"), new Cache.Entry("output", null));
+        Path entry = entries(folder.getRoot().toPath()).get(0);
+        Files.write(entry, new byte[]{1, 0, 0});
+        assertNull(cache.get(bytes("a")));
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        Path dir = folder.getRoot().toPath();
+        var cache = new Cache(dir, 10_000);
+        String output = "x".repeat(1000);
+        for (int i = 0; i < 50; i++) {
+            cache.put(bytes("source " + i), new Cache.Entry(output, null));
+            long size = 0;
+            for (Path entry : entries(dir))
+                size += Files.size(entry);
+            assertTrue(size <= 10_000);
+        }
+        // The most recent entry is kept
+        assertEquals(output, cache.get(bytes("source 49")).output);
+        assertTrue(entries(dir).size() < 10);
+    }
+
+    @Test
+    public void testBatch() throws Exception {
+        Path dir = folder.newFolder("proofs").toPath();
+        Path valid = dir.resolve("valid.proof");
+        Path invalid = dir.resolve("invalid.proof");
+        Files.writeString(valid, "let p be a proposition\ngiven p\nproof.\n1. p [Given]\n");
+        Files.writeString(invalid, "let p be a proposition\nproof.\n1. p [Given]\n");
+        var cache = new Cache(folder.newFolder("cache").toPath(), 1 << 20);
+        List<String> files = List.of(valid.toString(), invalid.toString());
+
+        var first = new Batch(2, cache).compile(files);
+        String expected = Files.readString(dir.resolve("valid.tex"));
+        Files.delete(dir.resolve("valid.tex"));
+        var second = new Batch(2, cache).compile(files);
+        for (int i = 0; i < files.size(); i++) {
+            assertEquals(false, first.get(i).cached);
+            assertEquals(true, second.get(i).cached);
+            assertEquals(first.get(i).error, second.get(i).error);
+        }
+        assertNull(second.get(0).error);
+        assertEquals(expected, Files.readString(dir.resolve("valid.tex")));
+        // Failed files are timed too
+        assertTrue(first.get(1).error != null);
+        assertTrue(first.get(1).nanos > 0);
+        var missing = new Batch(1).compile(List.of(dir.resolve("missing.proof").toString())).get(0);
+        assertTrue(missing.error.startsWith("IO Error"));
+        assertEquals(0, missing.nanos);
+    }
+
+    @Test
+    public void testWriteFailure() throws Exception {
+        // How cache hits are written, failing after a buffer is written
+        Path file = folder.getRoot().toPath().resolve("valid.tex");
+        Files.writeString(file, "old");
+        String output = "x".repeat(1 << 16);
+        try {
+            AtomicFile.write(file, out -> {
+                out.write(output);
+                out.flush();
+                throw new IOException("disk full");
+            });
+            fail();
+        } catch (IOException e) {
+            assertEquals("disk full", e.getMessage());
+        }
+        assertEquals("old", Files.readString(file));
+        // No temporary file is left behind
+        assertEquals(List.of(file), entries(folder.getRoot().toPath()));
+
+        AtomicFile.write(file, out -> out.write(output));
+        assertEquals(output, Files.readString(file));
+        assertEquals(List.of(file), entries(folder.getRoot().toPath()));
+    }
+}
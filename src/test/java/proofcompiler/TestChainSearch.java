@@ -0,0 +1,105 @@
+package proofcompiler;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import proofcompiler.ast.Line;
+import proofcompiler.ast.Number;
+import proofcompiler.ast.logic.Proposition;
+import proofcompiler.graph.ChainSearch;
+import proofcompiler.graph.Equivalence;
+import proofcompiler.graph.Rules;
+import proofcompiler.graph.Step;
+import static proofcompiler.ast.logic.Proposition.atomic;
+import static proofcompiler.ast.logic.Proposition.not;
+import static proofcompiler.ast.logic.Proposition.and;
+import static proofcompiler.ast.logic.Proposition.or;
+import static proofcompiler.ast.logic.Proposition.xor;
+import static proofcompiler.ast.logic.Proposition.implies;
+import static proofcompiler.ast.logic.Proposition.biconditional;
+
+public class TestChainSearch {
+    private static final Proposition p = atomic("p");
+    private static final Proposition q = atomic("q");
+    private static final Proposition r = atomic("r");
+
+    /**
+     * Checks that `chain` goes from `start` to `target` by valid lines.
+     */
+    private static void assertChain(Proposition start, Proposition target, List<Line> chain) {
+        assertNotNull(chain);
+        assertEquals(start, chain.get(0).proposition);
+        assertEquals(Step.GIVEN, chain.get(0).rule.name);
+        assertEquals(target, chain.get(chain.size() - 1).proposition);
+        for (int i = 1; i < chain.size(); i++) {
+            Line line = chain.get(i);
+            assertEquals(new Number(List.of(i + 1)), line.number);
+            assertEquals(Set.of(new Number(List.of(i))), line.rule.refs);
+            var rule = Rules.equivalences().get(line.rule.name);
+            assertTrue(line.toString(), Equivalence.match(
+                        rule.equivalences(), chain.get(i - 1).proposition, line.proposition));
+        }
+    }
+
+    @Test
+    public void testChains() {
+        List<List<Proposition>> pairs = List.of(
+                List.of(not(and(p, not(q))), implies(p, q)),
+                List.of(and(implies(p, q), implies(p, r)), implies(p, and(q, r))),
+                List.of(xor(p, q), and(or(p, q), not(and(p, q)))),
+                List.of(biconditional(p, q), or(and(p, q), and(not(p), not(q)))),
+                List.of(and(implies(p, r), implies(q, r)), implies(or(p, q), r)));
+        var search = new ChainSearch(new ChainSearch.Config());
+        for (var pair : pairs)
+            assertChain(pair.get(0), pair.get(1), search.search(pair.get(0), pair.get(1), null));
+    }
+
+    @Test
+    public void testTrivial() {
+        var chain = new ChainSearch(new ChainSearch.Config()).search(p, p, null);
+        assertEquals(1, chain.size());
+        assertChain(p, p, chain);
+    }
+
+    @Test
+    public void testNotEquivalent() {
+        var search = new ChainSearch(new ChainSearch.Config());
+        assertNull(search.search(implies(p, q), implies(q, p), null));
+        assertEquals(0, search.visited());
+    }
+
+    @Test
+    public void testBounds() {
+        Proposition start = and(implies(p, r), implies(q, r));
+        Proposition target = implies(or(p, q), r);
+        var config = new ChainSearch.Config();
+        config.maxStates = 100;
+        var search = new ChainSearch(config);
+        assertNull(search.search(start, target, null));
+        assertTrue(search.visited() <= 100);
+        config = new ChainSearch.Config();
+        config.timeout = 0;
+        assertNull(new ChainSearch(config).search(start, target, null));
+    }
+
+    @Test
+    public void testParallel() {
+        // The chain does not depend on the pool
+        Proposition start = and(implies(p, r), implies(q, r));
+        Proposition target = implies(or(p, q), r);
+        var search = new ChainSearch(new ChainSearch.Config());
+        var sequential = search.search(start, target, null);
+        var pool = new ForkJoinPool(4);
+        try {
+            assertEquals(sequential, search.search(start, target, pool));
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
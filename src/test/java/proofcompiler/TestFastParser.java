@@ -0,0 +1,204 @@
+package proofcompiler;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import proofcompiler.ast.Proof;
+import proofcompiler.generator.ProofGenerator;
+import proofcompiler.parser.ASTBuilder;
+import proofcompiler.parser.FastParser;
+
+/**
+ * Differential tests of `FastParser` against the ANTLR parser.
+ */
+public class TestFastParser {
+    private static final ClassLoader loader = TestFastParser.class.getClassLoader();
+
+    /**
+     * Returns the AST built by ANTLR, or null if it does not parse.
+     */
+    private static Proof antlr(String source) {
+        try {
+            return new ASTBuilder(false).parse(new ByteArrayInputStream(source.getBytes(StandardCharsets.UTF_8)));
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Checks that the fast parser builds the AST ANTLR builds, or rejects
+     * the source. Returns whether it accepted the source.
+     */
+    private static boolean same(String source) {
+        Proof fast = FastParser.parse(source);
+        if (fast != null) {
+            Proof expected = antlr(source);
+            assertNotNull(source, expected);
+            assertEquals(source, expected, fast);
+            assertEquals(source, expected.equivalence, fast.equivalence);
+        }
+        return fast != null;
+    }
+
+    private static List<String> corpus() throws Exception {
+        List<String> sources = new ArrayList<>();
+        for (String directory : List.of("valid", "parser_error", "format_error", "rule_error")) {
+            File dir = new File(loader.getResource(directory).toURI());
+            for (File file : dir.listFiles())
+                if (file.getName().endsWith(".proof"))
+                    sources.add(Files.readString(file.toPath()));
+        }
+        return sources;
+    }
+
+    private static List<String> generated() {
+        List<String> sources = new ArrayList<>();
+        for (int seed = 0; seed < 40; seed++) {
+            var config = new ProofGenerator.Config();
+            config.seed = seed;
+            config.lines = 30;
+            config.depth = seed % 4;
+            config.formulaDepth = 1 + seed % 5;
+            sources.add(new ProofGenerator(config).proof());
+            sources.add(new ProofGenerator(config).equivalence());
+        }
+        return sources;
+    }
+
+    @Test
+    public void testCorpus() throws Exception {
+        for (String source : corpus()) {
+            boolean accepted = same(source);
+            // The fast parser accepts everything ANTLR parses without errors
+            if (antlr(source) != null)
+                assertEquals(source, true, accepted);
+        }
+    }
+
+    @Test
+    public void testGenerated() {
+        for (String source : generated())
+            assertEquals(source, true, same(source));
+    }
+
+    @Test
+    public void testSyntax() {
+        String decls = "let p be a proposition\nlet q be a proposition\ngiven p\n";
+        List<String> accepted = List.of(
+                // Comments, including their end of line
+                decls + "proof. // comment\n1. p [Given]\n# comment\n",
+                decls + "/* a\nmulti-line comment */proof.\n1. p [Given]\n",
+                decls + "proof.\n1. p [Given]\n/* unterminated",
+                decls + "proof.\n1. p [Given]\n// no end of line",
+                // A line on the same line as the start
+                decls + "proof. 1. p [Given]\n",
+                "let p be a proposition\r\nproof.\r\n1. p [Given]\r\n",
+                // Numbers with and without the last dot
+                decls + "proof.\n1.1 p [Assumption]\n1.2. q [Given]\n1 p \\to q [Direct Proof Rule]\n",
+                decls + "proof.\n1. p [Given]\n2. q [Given]\n3. p ∧ q [Intro And: 1., 2]\n",
+                // Keywords are identifiers in the body
+                "let p be a proposition\nproof.\n1. a ∨ given ∨ proof ∨ T ∨ F [Intro Or: 1]\n",
+                // Operators in all notations, and rule names with operators
+                decls + "proof.\n1. ¬p ∧ \\neg q \\land \\lnot p \\wedge (p ∨ q \\lor p \\vee q) [Elim \\land: 1]\n",
+                decls + "proof.\n1. p ⊕ q \\oplus p → q [Intro \\to]\n",
+                decls + "proof.\n1. p \\rightarrow q [X ∨]\n2. p ↔ q [X \\leftrightarrow]\n3. p \\leftrightarrow q [X ⊕]\n",
+                decls + "proof.\n1. ((p)) [A B C ¬]\n",
+                // Equivalence chains
+                decls + "equivalence.\np ∧ q\n≡ q ∧ p [Commutativity]\n= q \\land p [Identity]\n",
+                decls + "equivalence.\n\n\np ≡ p [Identity]\n\\equiv p [Identity]\n",
+                decls + "equivalence. p\n");
+        for (String source : accepted)
+            assertEquals(source, true, same(source));
+
+        List<String> rejected = List.of(
+                "",
+                decls,
+                decls + "proof.\n1. p [Given]",
+                // The comment ends the line, which lacks its end of line
+                decls + "proof.\n1. p [Given] // comment\n",
+                decls + "proof.\n1. p → q → p [Given]\n",
+                decls + "proof.\n0. p [Given]\n",
+                decls + "proof.\n1. p [Given: 99999999999]\n",
+                decls + "proof.\n1.. p [Given]\n",
+                decls + "proof.\n1. p ? [Given]\n",
+                "let a be a proposition\nproof.\n1. a [Given]\n",
+                "let p be a proposition proof.\n1. p [Given]\n",
+                "given 1\nproof.\n",
+                decls + "equivalence.\n",
+                decls + "equivalence.\np\n≡ p [Identity]",
+                decls + "equivalence.\np ≡ p\n");
+        for (String source : rejected)
+            assertEquals(source, false, same(source));
+    }
+
+    @Test
+    public void testMutated() throws Exception {
+        // Inputs close to valid ones, where the parsers are most likely to differ
+        String alphabet = "\n \t\r.,:[]()/*#\\=≡¬∧∨⊕→↔paT0123456789";
+        List<String> sources = corpus();
+        sources.addAll(generated().subList(0, 10));
+        Random random = new Random(0);
+        var err = System.err;
+        // ANTLR reports the errors of the mutated sources
+        System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            for (int i = 0; i < 2000; i++) {
+                StringBuilder source = new StringBuilder(sources.get(random.nextInt(sources.size())));
+                for (int j = 1 + random.nextInt(3); j > 0 && source.length() > 0; j--) {
+                    int at = random.nextInt(source.length());
+                    switch (random.nextInt(3)) {
+                        case 0:
+                            source.deleteCharAt(at);
+                            break;
+                        case 1:
+                            source.insert(at, alphabet.charAt(random.nextInt(alphabet.length())));
+                            break;
+                        default:
+                            source.setCharAt(at, alphabet.charAt(random.nextInt(alphabet.length())));
+                            break;
+                    }
+                }
+                same(source.toString());
+            }
+        } finally {
+            System.setErr(err);
+        }
+    }
+
+    private static String nested(String open, String close, int depth) {
+        return "let p be a proposition\nproof.\n1. " + open.repeat(depth) + "p" + close.repeat(depth) + " [Given]\n";
+    }
+
+    @Test
+    public void testDeep() {
+        // As deep as allowed
+        assertTrue(same(nested("(", ")", 256)));
+        assertTrue(same(nested("¬(", ")", 128)));
+        assertTrue(same(nested("¬", "", 256)));
+        // Deeper, rejected by both parsers without overflowing the stack
+        var err = System.err;
+        System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            for (String source : List.of(
+                        nested("(", ")", 257), nested("¬(", ")", 129), nested("¬", "", 257),
+                        nested("(", ")", 100000), nested("¬", "", 100000))) {
+                assertNull(FastParser.parse(source));
+                assertNull(antlr(source));
+            }
+        } finally {
+            System.setErr(err);
+        }
+    }
+}
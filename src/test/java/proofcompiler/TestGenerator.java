@@ -0,0 +1,72 @@
+package proofcompiler;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import proofcompiler.parser.ASTBuilder;
+import proofcompiler.generator.ProofGenerator;
+
+public class TestGenerator {
+
+    private static void check(String source) throws Exception {
+        var input = new ByteArrayInputStream(source.getBytes(StandardCharsets.UTF_8));
+        var ast = new ASTBuilder().parse(input);
+        new Optimizer().optimize(FormatChecker.check(ast));
+    }
+
+    private static ProofGenerator.Config config(int lines, long seed) {
+        var config = new ProofGenerator.Config();
+        config.lines = lines;
+        config.seed = seed;
+        return config;
+    }
+
+    @Test
+    public void testProof() throws Exception {
+        for (long seed = 0; seed < 10; seed++)
+            check(new ProofGenerator(config(200, seed)).proof());
+    }
+
+    @Test
+    public void testEquivalence() throws Exception {
+        for (long seed = 0; seed < 10; seed++)
+            check(new ProofGenerator(config(100, seed)).equivalence());
+    }
+
+    @Test
+    public void testConfigurations() throws Exception {
+        var config = config(300, 1);
+        config.depth = 5;
+        config.subproof = 0.3;
+        config.width = 8;
+        config.formulaDepth = 5;
+        config.atoms = 12;
+        check(new ProofGenerator(config).proof());
+
+        config = config(300, 2);
+        config.inference = 1;
+        config.equivalence = 0;
+        config.subproof = 0;
+        check(new ProofGenerator(config).proof());
+
+        config = config(300, 3);
+        config.inference = 0;
+        config.equivalence = 1;
+        config.subproof = 0;
+        check(new ProofGenerator(config).proof());
+    }
+
+    @Test
+    public void testDeterministic() {
+        assertEquals(
+                new ProofGenerator(config(100, 7)).proof(),
+                new ProofGenerator(config(100, 7)).proof());
+        assertNotEquals(
+                new ProofGenerator(config(100, 7)).proof(),
+                new ProofGenerator(config(100, 8)).proof());
+    }
+}
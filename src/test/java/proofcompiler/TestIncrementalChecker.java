@@ -0,0 +1,120 @@
+package proofcompiler;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import proofcompiler.ast.Proof;
+import proofcompiler.parser.ASTBuilder;
+import proofcompiler.graph.Step;
+
+public class TestIncrementalChecker {
+    private static final String DECLS =
+        "let p be a proposition\n" +
+        "let q be a proposition\n" +
+        "given p\n" +
+        "given q\n" +
+        "proof.\n";
+
+    private static Proof parse(String source) throws Exception {
+        return new ASTBuilder().parse(new ByteArrayInputStream(source.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static Proof proof(String... lines) throws Exception {
+        return parse(DECLS + String.join("\n", lines) + "\n");
+    }
+
+    @Test
+    public void testUnchanged() throws Exception {
+        var checker = new IncrementalChecker();
+        var proof = proof(
+                "1. p [Given]",
+                "2. q [Given]",
+                "3. p ∧ q [Intro And: 1, 2]");
+        checker.check(proof);
+        assertEquals(3, checker.checked());
+        Step conclusion = checker.check(proof);
+        assertEquals(0, checker.checked());
+        assertEquals(FormatChecker.check(proof).proposition, conclusion.proposition);
+    }
+
+    @Test
+    public void testEditedLineAndDependents() throws Exception {
+        var checker = new IncrementalChecker();
+        checker.check(proof(
+                "1. p [Given]",
+                "2. q [Given]",
+                "3. p ∧ q [Intro And: 1, 2]",
+                "4. p [Elim And: 3]",
+                "5. p ∨ q [Intro Or: 4]"));
+        checker.check(proof(
+                "1. p [Given]",
+                "2. q [Given]",
+                "3. q ∧ p [Intro And: 1, 2]",
+                "4. p [Elim And: 3]",
+                "5. p ∨ q [Intro Or: 4]"));
+        // Line 5 refers to an unchanged proposition
+        assertEquals(2, checker.checked());
+    }
+
+    @Test
+    public void testRenumbered() throws Exception {
+        var checker = new IncrementalChecker();
+        checker.check(proof(
+                "1. p [Given]",
+                "2. q [Given]",
+                "3. p ∧ q [Intro And: 1, 2]"));
+        checker.check(proof(
+                "1. p [Given]",
+                "2. p ∨ q [Intro Or: 1]",
+                "3. q [Given]",
+                "4. p ∧ q [Intro And: 1, 3]"));
+        assertEquals(1, checker.checked());
+    }
+
+    @Test
+    public void testError() throws Exception {
+        var checker = new IncrementalChecker();
+        var valid = proof(
+                "1. p [Given]",
+                "2. q [Given]",
+                "3. p ∧ q [Intro And: 1, 2]",
+                "4. p [Elim And: 3]");
+        checker.check(valid);
+        try {
+            checker.check(proof(
+                    "1. p [Given]",
+                    "2. q [Given]",
+                    "3. p ∧ q [Intro And: 1, 2]",
+                    "4. p ∨ q [Elim And: 3]"));
+            fail();
+        } catch (Step.RuleCheckException e) {
+            assertEquals("at line 4 [p∨q]: inference rule does not match, although the line follows from the referenced lines", e.getMessage());
+        }
+        checker.check(valid);
+        // Only the line that was edited back
+        assertEquals(1, checker.checked());
+    }
+
+    @Test
+    public void testDeclarationsChanged() throws Exception {
+        var checker = new IncrementalChecker();
+        checker.check(proof(
+                "1. p [Given]",
+                "2. q [Given]"));
+        try {
+            checker.check(parse(
+                        "let p be a proposition\n" +
+                        "let q be a proposition\n" +
+                        "given p\n" +
+                        "proof.\n" +
+                        "1. p [Given]\n" +
+                        "2. q [Given]\n"));
+            fail();
+        } catch (Step.RuleCheckException e) {
+            assertEquals("at line 2 [q]: proposition is not given", e.getMessage());
+        }
+    }
+}
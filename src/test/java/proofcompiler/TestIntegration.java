@@ -14,13 +14,24 @@ import static org.junit.Assert.assertNotEquals;
 import java.io.File;
 import java.io.InputStream;
 import java.net.URISyntaxException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Stream;
 import static java.util.stream.Collectors.toUnmodifiableList;
 
 import proofcompiler.parser.ASTBuilder;
 import proofcompiler.graph.Step;
 import proofcompiler.codegen.Latex;
+import proofcompiler.codegen.LatexEquiv;
+import proofcompiler.codegen.MathJaxJson;
+import proofcompiler.ast.Line;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
 
 @RunWith(Parameterized.class)
 public class TestIntegration {
@@ -61,4 +72,64 @@ public class TestIntegration {
         var expected = new String(loader.getResourceAsStream(path + ".tex").readAllBytes());
         assertEquals(expected, latex);
     }
+
+    @Test
+    public void testParallel() throws Exception {
+        if (exception != null)
+            expected.expect(exception);
+        var ast = new ASTBuilder().parse(loader.getResourceAsStream(path + ".proof"));
+        var conclusion = FormatChecker.check(ast, ForkJoinPool.commonPool());
+        var lines = new Optimizer().optimize(conclusion);
+        String latex = new Latex().generate(lines);
+        var expected = new String(loader.getResourceAsStream(path + ".tex").readAllBytes());
+        assertEquals(expected, latex);
+    }
+
+    @Test
+    public void testLocalBuilder() throws Exception {
+        if (exception == ASTBuilder.ParserException.class)
+            expected.expect(exception);
+        // The builder of the thread is reused by all tests, including failed ones
+        var ast = ASTBuilder.local().parse(loader.getResourceAsStream(path + ".proof"));
+        assertEquals(new ASTBuilder().parse(loader.getResourceAsStream(path + ".proof")), ast);
+    }
+
+    @Test
+    public void testMathJaxJson() throws Exception {
+        if (exception != null)
+            expected.expect(exception);
+        var ast = new ASTBuilder().parse(loader.getResourceAsStream(path + ".proof"));
+        var conclusion = FormatChecker.check(ast);
+        var lines = new Optimizer().optimize(conclusion);
+        String json = new MathJaxJson(ast.equivalence).generate(lines);
+        assertEquals(tree(lines, ast.equivalence), JsonParser.parseString(json));
+    }
+
+    /**
+     * JSON of the lines, built as a tree.
+     */
+    private static JsonElement tree(List<Line> lines, boolean equivalence) {
+        Deque<List<Object>> stack = new ArrayDeque<>();
+        List<Object> current = new ArrayList<>();
+        for (Line line : lines) {
+            if (line.rule.name.equals(Step.ASSUMPTION)) {
+                stack.addLast(current);
+                current = new ArrayList<>();
+            } else if (line.rule.name.equals(Step.DPR)) {
+                Map<String, Object> sub = Map.of("subproof", current);
+                current = stack.removeLast();
+                current.add(sub);
+            }
+            if (equivalence)
+                current.add(Map.of(
+                            "prop", Latex.prop(line.proposition),
+                            "rule", LatexEquiv.rule(line.rule)));
+            else
+                current.add(Map.of(
+                            "number", line.number.toString(),
+                            "prop", Latex.prop(line.proposition),
+                            "rule", Latex.rule(line.rule)));
+        }
+        return new Gson().toJsonTree(current);
+    }
 }
@@ -0,0 +1,64 @@
+package proofcompiler;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import proofcompiler.parser.ASTBuilder;
+import proofcompiler.ast.Line;
+import proofcompiler.codegen.Latex;
+
+/**
+ * Proofs too deep or too long for recursive traversals.
+ */
+public class TestLarge {
+
+    private static List<Line> compile(String source) throws Exception {
+        var input = new ByteArrayInputStream(source.getBytes(StandardCharsets.UTF_8));
+        var ast = new ASTBuilder().parse(input);
+        return new Optimizer().optimize(FormatChecker.check(ast));
+    }
+
+    private static String conjunction(String first, int atoms) {
+        StringBuilder sb = new StringBuilder(first);
+        for (int i = 1; i < atoms; i++)
+            sb.append(" ∧ p");
+        return sb.toString();
+    }
+
+    @Test
+    public void testDeepProposition() throws Exception {
+        int atoms = 10000;
+        String conjunction = conjunction("p", atoms);
+        String rewritten = conjunction("¬¬p", atoms);
+        String source =
+            "let p be a proposition\n" +
+            "given " + conjunction + "\n" +
+            "proof.\n" +
+            "1. " + conjunction + " [given]\n" +
+            "2. " + conjunction("p", atoms - 1) + " [elim and: 1]\n" +
+            "3. " + rewritten + " [double negation: 1]\n" +
+            "4. (" + rewritten + ") ∧ (" + conjunction + ") [intro and: 3, 1]\n";
+        var lines = compile(source);
+        assertEquals(3, lines.size());
+        assertEquals(rewritten.replace(" ", ""), lines.get(1).proposition.toString());
+        new Latex().generate(lines);
+    }
+
+    @Test
+    public void testLongProof() throws Exception {
+        int lines = 50000;
+        StringBuilder sb = new StringBuilder();
+        sb.append("let p be a proposition\ngiven p\nproof.\n1. p [given]\n2. p [given]\n");
+        for (int n = 3; n < lines; n += 2) {
+            sb.append(n).append(". p ∧ p [intro and: 1, ").append(n - 1).append("]\n");
+            sb.append(n + 1).append(". p [elim and: ").append(n).append("]\n");
+        }
+        var result = compile(sb.toString());
+        assertEquals(lines, result.size());
+        new Latex().generate(result);
+    }
+}
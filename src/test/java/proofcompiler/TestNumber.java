@@ -0,0 +1,76 @@
+package proofcompiler;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.assertFalse;
+
+import java.util.List;
+import proofcompiler.ast.Number;
+
+public class TestNumber {
+    private static Number number(Integer... parts) {
+        return new Number(List.of(parts));
+    }
+
+    @Test
+    public void testSteps() {
+        assertEquals(number(1), Number.ZERO.next());
+        assertEquals(number(1, 1), Number.ZERO.increaseLevel());
+        assertEquals(number(2, 4, 1), number(2, 3).increaseLevel());
+        assertEquals(number(2), number(2, 3).decreaseLevel());
+        assertEquals("2.3.1", number(2, 2).increaseLevel().toString());
+    }
+
+    @Test
+    public void testLargeNumbers() {
+        // Parts beyond 16 bits and depths beyond 4 levels
+        assertEquals(number(65536), number(65535).next());
+        assertEquals("65536", number(65535).next().toString());
+        assertEquals(number(1, 2, 3, 5, 1), number(1, 2, 3, 4).increaseLevel());
+        assertEquals(number(1, 2, 3, 4), number(1, 2, 3, 4, 5).decreaseLevel());
+        assertEquals(number(1, 2, 3, 4).hashCode(), number(1, 2, 3, 4, 5).decreaseLevel().hashCode());
+        assertEquals(number(70000, 1), number(69999).increaseLevel());
+        assertEquals(number(70000), number(70000, 1).decreaseLevel());
+    }
+
+    @Test
+    public void testEquals() {
+        assertEquals(number(1, 2), number(1, 2));
+        assertEquals(number(1, 2).hashCode(), number(1, 2).hashCode());
+        assertNotEquals(number(1, 2), number(1, 2, 0));
+        assertNotEquals(number(1), number(2));
+    }
+
+    @Test
+    public void testCompareTo() {
+        List<Number> ordered = List.of(
+                number(1, 1), number(1, 2, 1), number(1, 2), number(1),
+                number(2), number(65535, 70000), number(65535),
+                number(70000, 1, 1, 1, 1), number(70000, 1, 1, 1), number(70000, 1),
+                number(70000));
+        for (int i = 0; i < ordered.size(); i++) {
+            for (int j = 0; j < ordered.size(); j++) {
+                Number a = ordered.get(i);
+                Number b = ordered.get(j);
+                assertEquals(a + " vs " + b, Integer.signum(Integer.compare(i, j)), Integer.signum(a.compareTo(b)));
+            }
+        }
+    }
+
+    @Test
+    public void testHasAccess() {
+        assertTrue(number(3).hasAccess(number(2)));
+        assertFalse(number(2).hasAccess(number(2)));
+        assertFalse(number(2).hasAccess(number(3)));
+        assertTrue(number(2, 3).hasAccess(number(1)));
+        assertTrue(number(2, 3).hasAccess(number(2, 1)));
+        assertFalse(number(2, 3).hasAccess(number(1, 1)));
+        assertFalse(number(2).hasAccess(number(1, 1)));
+        assertTrue(number(1, 2, 3, 4, 5).hasAccess(number(1, 2, 3, 4, 4)));
+        assertTrue(number(1, 2, 3, 4, 5).hasAccess(number(1, 2, 1)));
+        assertFalse(number(1, 2, 3, 4, 5).hasAccess(number(1, 3, 1)));
+        assertTrue(number(70000, 2).hasAccess(number(69999)));
+    }
+}
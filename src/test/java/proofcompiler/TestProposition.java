@@ -4,6 +4,7 @@ import org.junit.Test;
 import org.junit.Before;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
 
 import proofcompiler.ast.logic.Proposition;
 import proofcompiler.ast.logic.UnaryOp;
@@ -105,4 +106,25 @@ public class TestProposition {
                 ).toString()
             );
     }
+
+    @Test
+    public void testInterning() {
+        Proposition lhs = Proposition.implies(
+                Proposition.not(Proposition.atomic("p")),
+                Proposition.or(Proposition.atomic("q"), Proposition.TRUE));
+        Proposition rhs = Proposition.implies(
+                Proposition.not(Proposition.atomic("p")),
+                Proposition.or(Proposition.atomic("q"), Proposition.TRUE));
+        assertSame(lhs, rhs);
+        assertEquals(lhs.hashCode(), rhs.hashCode());
+    }
+
+    @Test
+    public void testMetaIsNotAtomic() {
+        assertNotEquals(Proposition.meta("p"), Proposition.atomic("p"));
+        assertNotEquals(Proposition.atomic("p"), Proposition.meta("p"));
+        assertNotEquals(
+                Proposition.and(Proposition.meta("p"), Proposition.meta("q")),
+                Proposition.and(Proposition.atomic("p"), Proposition.atomic("q")));
+    }
 }
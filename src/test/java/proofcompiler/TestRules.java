@@ -0,0 +1,51 @@
+package proofcompiler;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import proofcompiler.graph.Rules;
+import proofcompiler.graph.Step;
+
+public class TestRules {
+    @Test
+    public void testLookup() {
+        assertEquals(7, Rules.inferences().size());
+        for (var rule : Rules.inferences().entrySet())
+            assertSame(rule.getKey(), rule.getValue(), Rules.get(rule.getKey()));
+        for (var rule : Rules.equivalences().entrySet())
+            assertSame(rule.getKey(), rule.getValue(), Rules.get(rule.getKey()));
+        assertTrue(Rules.equivalences().containsKey("demorgan's law"));
+        assertSame(Rules.get("negation"), Rules.get("complementarity"));
+        assertNull(Rules.get("unknown rule"));
+        assertNull(Rules.get(Step.GIVEN));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testImmutable() {
+        Rules.equivalences().remove("identity");
+    }
+
+    @Test
+    public void testConcurrent() throws Exception {
+        ExecutorService threads = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Step.StepConstructor>> lookups = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                String name = i % 2 == 0 ? "modus ponens" : "absorption";
+                lookups.add(threads.submit(() -> Rules.get(name)));
+            }
+            for (int i = 0; i < lookups.size(); i++)
+                assertSame(lookups.get(i % 2).get(), lookups.get(i).get());
+        } finally {
+            threads.shutdown();
+        }
+    }
+}
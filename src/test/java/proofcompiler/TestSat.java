@@ -0,0 +1,192 @@
+package proofcompiler;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import proofcompiler.ast.logic.Proposition;
+import proofcompiler.graph.Inference;
+import proofcompiler.semantics.Bdd;
+import proofcompiler.semantics.Sat;
+import proofcompiler.semantics.Semantics;
+import static proofcompiler.ast.logic.Proposition.atomic;
+import static proofcompiler.ast.logic.Proposition.not;
+import static proofcompiler.ast.logic.Proposition.and;
+import static proofcompiler.ast.logic.Proposition.or;
+import static proofcompiler.ast.logic.Proposition.xor;
+import static proofcompiler.ast.logic.Proposition.implies;
+import static proofcompiler.ast.logic.Proposition.biconditional;
+
+public class TestSat {
+    /**
+     * Decides a CNF by enumerating the assignments of its `n` variables.
+     */
+    private static boolean bruteForce(int n, List<int[]> clauses) {
+        for (int bits = 0; bits < 1 << n; bits++) {
+            boolean all = true;
+            for (int[] clause : clauses)
+                all &= satisfied(clause, bits);
+            if (all)
+                return true;
+        }
+        return false;
+    }
+
+    private static boolean satisfied(int[] clause, int bits) {
+        for (int lit : clause)
+            if (((bits >> (lit >> 1) & 1) == 1) == ((lit & 1) == 0))
+                return true;
+        return false;
+    }
+
+    @Test
+    public void testRandom3Sat() {
+        Random random = new Random(0);
+        int n = 12;
+        for (int round = 0; round < 300; round++) {
+            // Around the threshold ratio of 4.26, where both answers occur
+            int m = 30 + random.nextInt(41);
+            var solver = new Sat();
+            for (int v = 0; v < n; v++)
+                solver.newVariable();
+            List<int[]> clauses = new ArrayList<>();
+            for (int i = 0; i < m; i++) {
+                int[] clause = new int[3];
+                for (int k = 0; k < 3; k++)
+                    clause[k] = Sat.literal(random.nextInt(n), random.nextBoolean());
+                clauses.add(clause);
+                solver.addClause(clause);
+            }
+            Sat.Result result = solver.solve(Long.MAX_VALUE);
+            boolean expected = bruteForce(n, clauses);
+            assertEquals(expected ? Sat.Result.SATISFIABLE : Sat.Result.UNSATISFIABLE, result);
+            if (expected) {
+                int bits = 0;
+                for (int v = 0; v < n; v++)
+                    if (solver.value(v))
+                        bits |= 1 << v;
+                for (int[] clause : clauses)
+                    assertTrue(satisfied(clause, bits));
+            }
+        }
+    }
+
+    /**
+     * The clauses saying that each pigeon sits in a hole, and no two in the
+     * same one; the pigeon i in the hole j is the variable i * holes + j.
+     */
+    private static Sat pigeonhole(int pigeons, int holes) {
+        var solver = new Sat();
+        for (int v = 0; v < pigeons * holes; v++)
+            solver.newVariable();
+        for (int i = 0; i < pigeons; i++) {
+            int[] somewhere = new int[holes];
+            for (int j = 0; j < holes; j++)
+                somewhere[j] = Sat.literal(i * holes + j, true);
+            solver.addClause(somewhere);
+        }
+        for (int j = 0; j < holes; j++)
+            for (int i = 0; i < pigeons; i++)
+                for (int k = i + 1; k < pigeons; k++)
+                    solver.addClause(Sat.literal(i * holes + j, false), Sat.literal(k * holes + j, false));
+        return solver;
+    }
+
+    @Test
+    public void testPigeonhole() {
+        // Unsatisfiable, and needs many learnt clauses
+        assertEquals(Sat.Result.UNSATISFIABLE, pigeonhole(7, 6).solve(Long.MAX_VALUE));
+        assertEquals(Sat.Result.UNKNOWN, pigeonhole(7, 6).solve(10));
+        assertEquals(Sat.Result.SATISFIABLE, pigeonhole(6, 6).solve(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testClauses() {
+        var solver = new Sat();
+        int v = solver.newVariable();
+        // Tautologies are dropped, duplicates merged
+        solver.addClause(Sat.literal(v, true), Sat.literal(v, false));
+        solver.addClause(Sat.literal(v, false), Sat.literal(v, false));
+        assertEquals(Sat.Result.SATISFIABLE, solver.solve(100));
+        assertEquals(false, solver.value(v));
+        solver.addClause();
+        assertEquals(Sat.Result.UNSATISFIABLE, solver.solve(100));
+    }
+
+    private static Proposition random(Random random, List<Proposition> atoms, int depth) {
+        if (depth == 0 || random.nextInt(4) == 0) {
+            int i = random.nextInt(atoms.size() + 2);
+            return i < atoms.size() ? atoms.get(i) : i == atoms.size() ? Proposition.TRUE : Proposition.FALSE;
+        }
+        Proposition lhs = random(random, atoms, depth - 1);
+        switch (random.nextInt(6)) {
+            case 0: return not(lhs);
+            case 1: return and(lhs, random(random, atoms, depth - 1));
+            case 2: return or(lhs, random(random, atoms, depth - 1));
+            case 3: return xor(lhs, random(random, atoms, depth - 1));
+            case 4: return implies(lhs, random(random, atoms, depth - 1));
+            default: return biconditional(lhs, random(random, atoms, depth - 1));
+        }
+    }
+
+    @Test
+    public void testEntailsAgainstBdd() throws Exception {
+        List<Proposition> atoms = List.of(atomic("p"), atomic("q"), atomic("r"), atomic("s"), atomic("t"));
+        Random random = new Random(1);
+        var bdd = new Bdd(1 << 20);
+        for (int i = 0; i < 300; i++) {
+            List<Proposition> premises = new ArrayList<>();
+            Proposition conjunction = Proposition.TRUE;
+            for (int k = random.nextInt(3); k >= 0; k--) {
+                Proposition premise = random(random, atoms, 4);
+                premises.add(premise);
+                conjunction = and(conjunction, premise);
+            }
+            Proposition conclusion = random(random, atoms, 4);
+            boolean expected = bdd.build(implies(conjunction, conclusion)) == Bdd.TRUE;
+            assertEquals(premises + " ⊢ " + conclusion,
+                    expected ? Semantics.Verdict.YES : Semantics.Verdict.NO,
+                    Semantics.entails(premises, conclusion));
+        }
+    }
+
+    @Test
+    public void testManyAtoms() {
+        // A chain of 60 implications, beyond truth tables
+        int n = 60;
+        List<Proposition> premises = new ArrayList<>();
+        premises.add(atomic("a0"));
+        for (int i = 0; i < n; i++)
+            premises.add(implies(atomic("a" + i), atomic("a" + (i + 1))));
+        assertEquals(Semantics.Verdict.YES, Semantics.entails(premises, atomic("a" + n)));
+        assertEquals(Semantics.Verdict.NO, Semantics.entails(premises, atomic("b")));
+        premises.remove(n / 2);
+        assertEquals(Semantics.Verdict.NO, Semantics.entails(premises, atomic("a" + n)));
+    }
+
+    private static String error(String source) throws Exception {
+        try {
+            Compiler.compile(new ByteArrayInputStream(source.getBytes(StandardCharsets.UTF_8)), null);
+        } catch (Inference.RuleCheckException e) {
+            return e.getMessage();
+        }
+        fail();
+        return null;
+    }
+
+    @Test
+    public void testDiagnostics() throws Exception {
+        String decls = "let p be a proposition\nlet q be a proposition\ngiven p ∧ q\nproof.\n1. p ∧ q [Given]\n";
+        assertEquals("at line 2 [q∧p]: inference rule does not match, although the line follows from the referenced lines; 'commutativity' would match",
+                error(decls + "2. q ∧ p [Elim And: 1]\n"));
+        assertEquals("at line 2 [p∧¬q]: inference rule does not match, and the line does not follow from the referenced lines",
+                error(decls + "2. p ∧ ¬q [Elim And: 1]\n"));
+    }
+}
@@ -0,0 +1,160 @@
+package proofcompiler;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class TestServer {
+    private static final ClassLoader loader = TestServer.class.getClassLoader();
+
+    private Server server;
+    private Thread thread;
+    private PrintStream err;
+
+    @Before
+    public void start() throws Exception {
+        server = new Server(0);
+        thread = new Thread(() -> {
+            try {
+                server.run();
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        thread.start();
+        // The server reports the errors of the sources it parses
+        err = System.err;
+        System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @After
+    public void stop() throws Exception {
+        System.setErr(err);
+        server.close();
+        thread.join();
+    }
+
+    private static List<byte[]> corpus() throws Exception {
+        List<byte[]> sources = new ArrayList<>();
+        for (String directory : List.of("valid", "parser_error", "format_error", "rule_error")) {
+            File dir = new File(loader.getResource(directory).toURI());
+            for (File file : dir.listFiles())
+                if (file.getName().endsWith(".proof"))
+                    sources.add(Files.readAllBytes(file.toPath()));
+        }
+        return sources;
+    }
+
+    /**
+     * Returns what `Client.compile` should return for `source`, or the
+     * error description prefixed with "error: ".
+     */
+    private static String local(byte[] source) {
+        try {
+            return Compiler.compile(new ByteArrayInputStream(source), null).toString();
+        } catch (Exception e) {
+            return "error: " + Compiler.describe(e);
+        }
+    }
+
+    private static String remote(Client client, byte[] source) throws Exception {
+        try {
+            return client.compile(source);
+        } catch (Client.CompileException e) {
+            return "error: " + e.getMessage();
+        }
+    }
+
+    @Test
+    public void testCorpus() throws Exception {
+        // One connection for all the requests
+        try (var client = new Client(server.port())) {
+            for (byte[] source : corpus())
+                assertEquals(new String(source, StandardCharsets.UTF_8), local(source), remote(client, source));
+        }
+    }
+
+    @Test
+    public void testErrors() throws Exception {
+        try (var client = new Client(server.port())) {
+            assertEquals("error: Parser Error", remote(client, "proof.\n1. (\n".getBytes(StandardCharsets.UTF_8)));
+            byte[] invalid = "let p be a proposition\nproof.\n1. p [Given]\n".getBytes(StandardCharsets.UTF_8);
+            assertEquals(local(invalid), remote(client, invalid));
+            // The connection is still usable
+            byte[] valid = "let p be a proposition\ngiven p\nproof.\n1. p [Given]\n".getBytes(StandardCharsets.UTF_8);
+            assertEquals(local(valid), remote(client, valid));
+        }
+    }
+
+    @Test
+    public void testErrorDescriptions() throws Exception {
+        String decls = "let p be a proposition\nlet q be a proposition\ngiven p ∧ q\nproof.\n1. p ∧ q [Given]\n";
+        try (var client = new Client(server.port())) {
+            // Not ASCII
+            byte[] source = (decls + "2. q ∧ p [Elim And: 1]\n").getBytes(StandardCharsets.UTF_8);
+            assertEquals(local(source), remote(client, source));
+            assertTrue(remote(client, source).contains("[q∧p]"));
+            // Longer than a header
+            String conjunction = String.join(" ∧ ", Collections.nCopies(1000, "q"));
+            source = (decls + "2. " + conjunction + " [Elim And: 1]\n").getBytes(StandardCharsets.UTF_8);
+            String description = remote(client, source);
+            assertEquals(local(source), description);
+            assertTrue(description.length() > 1024);
+        }
+    }
+
+    @Test
+    public void testMalformed() throws Exception {
+        try (var socket = new Socket("localhost", server.port())) {
+            socket.getOutputStream().write("HELLO\n".getBytes(StandardCharsets.UTF_8));
+            var in = socket.getInputStream();
+            assertEquals(Server.ERROR + " 17", Server.readHeader(in));
+            assertEquals("malformed request", new String(in.readNBytes(17), StandardCharsets.UTF_8));
+            // Then the server closes the connection
+            assertNull(Server.readHeader(in));
+        }
+    }
+
+    @Test
+    public void testConcurrent() throws Exception {
+        List<byte[]> sources = corpus();
+        List<String> expected = new ArrayList<>();
+        for (byte[] source : sources)
+            expected.add(local(source));
+        ExecutorService clients = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<String>>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(clients.submit(() -> {
+                    List<String> documents = new ArrayList<>();
+                    try (var client = new Client(server.port())) {
+                        for (byte[] source : sources)
+                            documents.add(remote(client, source));
+                    }
+                    return documents;
+                }));
+            }
+            for (var result : results)
+                assertEquals(expected, result.get());
+        } finally {
+            clients.shutdown();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package proofcompiler;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import proofcompiler.graph.Equivalence;
+import proofcompiler.graph.Inference;
+import proofcompiler.graph.Step;
+import proofcompiler.parser.ASTBuilder;
+
+public class TestSuggestions {
+    private static final String DECLS =
+        "let p be a proposition\n" +
+        "let q be a proposition\n" +
+        "given p\n" +
+        "given p → q\n" +
+        "proof.\n" +
+        "1. p [Given]\n" +
+        "2. p → q [Given]\n";
+
+    private static Step.RuleCheckException error(String... lines) throws Exception {
+        String source = DECLS + String.join("\n", lines) + "\n";
+        var proof = new ASTBuilder().parse(new ByteArrayInputStream(source.getBytes(StandardCharsets.UTF_8)));
+        try {
+            FormatChecker.check(proof);
+        } catch (Step.RuleCheckException e) {
+            return e;
+        }
+        fail();
+        return null;
+    }
+
+    @Test
+    public void testInference() throws Exception {
+        var e = (Inference.RuleCheckException) error("3. q [Elim Or: 1, 2]");
+        assertEquals(List.of("modus ponens"), e.suggestions());
+        assertEquals("at line 3 [q]: inference rule does not match, although the line follows from the referenced lines; "
+                + "'modus ponens' would match", e.getMessage());
+    }
+
+    @Test
+    public void testAcrossFamilies() throws Exception {
+        // An equivalence line fixed by an inference rule, and the other way around
+        var equivalence = (Equivalence.RuleCheckException) error("3. p ∨ q [Commutativity: 1]");
+        assertEquals(List.of("intro or"), equivalence.suggestions());
+        var inference = (Inference.RuleCheckException) error("3. ¬p ∨ q [Intro Or: 2]");
+        assertEquals(List.of("law of implication"), inference.suggestions());
+    }
+
+    @Test
+    public void testAliases() throws Exception {
+        var e = error("3. ¬¬p [Identity: 1]");
+        assertEquals("at line 3 [¬¬p]: equivalence rule does not match; 'double negation' or 'involution' would match",
+                e.getMessage());
+    }
+
+    @Test
+    public void testBusyPool() throws Exception {
+        // Suggestions do not depend on the load of the pool
+        var pool = ForkJoinPool.commonPool();
+        var busy = new CountDownLatch(1);
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (int i = 0; i < pool.getParallelism(); i++)
+            tasks.add(pool.submit(() -> {
+                busy.await(200, TimeUnit.MILLISECONDS);
+                return null;
+            }));
+        try {
+            var e = (Inference.RuleCheckException) error("3. q [Elim Or: 1, 2]");
+            assertEquals(List.of("modus ponens"), e.suggestions());
+        } finally {
+            busy.countDown();
+            tasks.forEach(ForkJoinTask::join);
+        }
+    }
+
+    @Test
+    public void testNone() throws Exception {
+        var e = (Inference.RuleCheckException) error("3. q [Elim And: 1]");
+        assertTrue(e.suggestions().isEmpty());
+        assertEquals("at line 3 [q]: inference rule does not match, and the line does not follow from the referenced lines",
+                e.getMessage());
+        // Equivalent, but not by a single rule
+        var f = (Equivalence.RuleCheckException) error("3. ¬(p ∧ ¬q) [Identity: 2]");
+        assertTrue(f.suggestions().isEmpty());
+    }
+}